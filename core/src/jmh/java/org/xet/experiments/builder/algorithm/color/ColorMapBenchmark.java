@@ -0,0 +1,56 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import org.openjdk.jmh.annotations.*;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Уменьшение изображения до размера сетки и квантование в палитру с разными режимами сглаживания.
+ * Исходное изображение синтетическое: плавный градиент с шумом, вдвое больше сетки,
+ * как после декодирования с прореживанием.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ColorMapBenchmark {
+    @Param({"32", "128", "512", "1024"})
+    public int size;
+
+    @Param({"none", "floyd_steinberg", "bayer"})
+    public String dithering;
+
+    private BufferedImage image;
+    private ColorHeightMaps grid;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int sourceSize = size * 2;
+        image = new BufferedImage(sourceSize, sourceSize, BufferedImage.TYPE_INT_RGB);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int y = 0; y < sourceSize; y++) {
+            for (int x = 0; x < sourceSize; x++) {
+                int r = x * 255 / sourceSize;
+                int g = y * 255 / sourceSize;
+                int b = random.nextInt(256);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        grid = new ColorHeightMaps(size, size);
+        // Таблица палитры строится один раз за процесс и не должна попадать в измерения
+        PaletteLookupTable.getInstance(PaletteMaterial.CONCRETE_POWDER);
+    }
+
+    @Benchmark
+    public byte[] fillColorMap() {
+        new ColorMap(image)
+                .setDithering(DitheringMode.fromName(dithering))
+                .fillColorMap(grid);
+        return grid.colors();
+    }
+}
@@ -0,0 +1,41 @@
+package org.xet.experiments.builder.algorithm.height_map;
+
+import org.openjdk.jmh.annotations.*;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация карты высот каждым зарегистрированным генератором.
+ * Генератор вызывается напрямую, в обход дискового кэша; сид фиксирован, чтобы прогоны были сравнимы.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class HeightMapBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"v1", "v2", "v3", "v4", "game", "wave_noise"})
+    public String generatorName;
+
+    @Param({"32", "128", "512", "1024"})
+    public int size;
+
+    private GeneratorHeightMap generator;
+    private ColorHeightMaps grid;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        generator = RegistryGeneratorsHeightMap.getGeneratorByName(generatorName);
+        grid = new ColorHeightMaps(size, size);
+    }
+
+    @Benchmark
+    public int[] fillHeightMap() {
+        generator.fillHeightMap(grid, SEED);
+        return grid.heights();
+    }
+}
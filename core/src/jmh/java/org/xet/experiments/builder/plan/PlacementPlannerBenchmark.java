@@ -0,0 +1,53 @@
+package org.xet.experiments.builder.plan;
+
+import org.openjdk.jmh.annotations.*;
+import org.xet.experiments.builder.algorithm.color.ImageColorEnum;
+import org.xet.experiments.builder.algorithm.height_map.RegistryGeneratorsHeightMap;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение плана размещения из готовой сетки и ленивый обход той же сетки курсором
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PlacementPlannerBenchmark {
+    @Param({"32", "128", "512", "1024"})
+    public int size;
+
+    private ColorHeightMaps grid;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grid = new ColorHeightMaps(size, size);
+        RegistryGeneratorsHeightMap.getGeneratorByName("wave_noise").fillHeightMap(grid, 42);
+        SplittableRandom random = new SplittableRandom(42);
+        ImageColorEnum[] colors = ImageColorEnum.values();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid.setColor(x, y, colors[random.nextInt(colors.length - 1)]);
+            }
+        }
+    }
+
+    @Benchmark
+    public PlacementPlan plan() {
+        return PlacementPlanner.plan(grid, 0, 64, 0);
+    }
+
+    @Benchmark
+    public long cursor() {
+        PlacementCursor cursor = new PlacementCursor(grid, 0, 64, 0);
+        long checksum = 0;
+        while (cursor.advance()) {
+            checksum += cursor.getY() * 31L + cursor.getCode();
+        }
+        return checksum;
+    }
+}
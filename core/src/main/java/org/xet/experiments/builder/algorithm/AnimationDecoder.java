@@ -0,0 +1,235 @@
+package org.xet.experiments.builder.algorithm;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Покадровое декодирование анимации: GIF или папка с пронумерованными изображениями (frame1.png, frame2.png, ...).
+ * Кадры GIF часто хранят только изменившийся прямоугольник, поэтому они накладываются на общий холст
+ * по смещению и способу очистки из метаданных кадра - так получается кадр, который видит зритель.
+ * Холст переиспользуется, и в памяти одновременно держится не больше двух полных кадров.
+ */
+public final class AnimationDecoder {
+    private static final String GIF_IMAGE_METADATA = "javax_imageio_gif_image_1.0";
+    private static final String GIF_STREAM_METADATA = "javax_imageio_gif_stream_1.0";
+    private static final Set<String> SEQUENCE_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "bmp");
+    // Последнее число в имени файла до расширения - номер кадра
+    private static final Pattern FRAME_NUMBER = Pattern.compile("(\\d+)(?!.*\\d)");
+    /**
+     * Задержки короче этой браузеры считают ошибкой файла и заменяют задержкой по умолчанию
+     */
+    private static final int MIN_DELAY_MS = 20;
+
+    private AnimationDecoder() {
+    }
+
+    /**
+     * Получатель кадров; изображение действительно только во время вызова
+     */
+    public interface FrameConsumer {
+        void accept(BufferedImage frame, int delayMs) throws IOException;
+    }
+
+    /**
+     * Декодирует не больше maxFrames кадров; возвращает число переданных кадров.
+     * Для папки и для кадров без задержки используется defaultDelayMs
+     */
+    public static int decode(File source, int maxFrames, int defaultDelayMs, FrameConsumer consumer) throws IOException {
+        if (source.isDirectory()) {
+            return decodeSequence(source, maxFrames, defaultDelayMs, consumer);
+        }
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            if (input == null) {
+                throw new IOException("File not found");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, false, false);
+                if ("gif".equalsIgnoreCase(reader.getFormatName())) {
+                    return decodeGif(reader, maxFrames, defaultDelayMs, consumer);
+                }
+                // Прочие форматы: каждое изображение файла - отдельный кадр, обычно он один
+                int count = 0;
+                while (count < maxFrames && count < reader.getNumImages(true)) {
+                    checkInterrupted();
+                    consumer.accept(reader.read(count), defaultDelayMs);
+                    count++;
+                }
+                return count;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int decodeGif(ImageReader reader, int maxFrames, int defaultDelayMs, FrameConsumer consumer) throws IOException {
+        int frameCount = Math.min(maxFrames, reader.getNumImages(true));
+        if (frameCount == 0) {
+            return 0;
+        }
+
+        int canvasWidth = 0;
+        int canvasHeight = 0;
+        IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (streamMetadata != null) {
+            Node screen = findChild(streamMetadata.getAsTree(GIF_STREAM_METADATA), "LogicalScreenDescriptor");
+            canvasWidth = getIntAttribute(screen, "logicalScreenWidth", 0);
+            canvasHeight = getIntAttribute(screen, "logicalScreenHeight", 0);
+        }
+        if (canvasWidth <= 0 || canvasHeight <= 0) {
+            canvasWidth = reader.getWidth(0);
+            canvasHeight = reader.getHeight(0);
+        }
+
+        BufferedImage canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] canvasPixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+        int[] previousPixels = null;
+        Graphics2D graphics = canvas.createGraphics();
+        try {
+            // Очистка, которую нужно выполнить перед следующим кадром
+            String pendingDisposal = "none";
+            int disposeX = 0;
+            int disposeY = 0;
+            int disposeWidth = 0;
+            int disposeHeight = 0;
+
+            for (int i = 0; i < frameCount; i++) {
+                checkInterrupted();
+                if (pendingDisposal.equals("restoreToBackgroundColor")) {
+                    // Фон GIF почти везде показывается прозрачным, как и в браузерах
+                    graphics.setComposite(AlphaComposite.Clear);
+                    graphics.fillRect(disposeX, disposeY, disposeWidth, disposeHeight);
+                } else if (pendingDisposal.equals("restoreToPrevious") && previousPixels != null) {
+                    System.arraycopy(previousPixels, 0, canvasPixels, 0, canvasPixels.length);
+                }
+
+                BufferedImage frame = reader.read(i);
+                Node metadata = reader.getImageMetadata(i).getAsTree(GIF_IMAGE_METADATA);
+                Node descriptor = findChild(metadata, "ImageDescriptor");
+                Node control = findChild(metadata, "GraphicControlExtension");
+                int left = getIntAttribute(descriptor, "imageLeftPosition", 0);
+                int top = getIntAttribute(descriptor, "imageTopPosition", 0);
+                String disposal = getAttribute(control, "disposalMethod", "none");
+                int delayMs = getIntAttribute(control, "delayTime", 0) * 10;
+
+                if (disposal.equals("restoreToPrevious")) {
+                    if (previousPixels == null) {
+                        previousPixels = new int[canvasPixels.length];
+                    }
+                    System.arraycopy(canvasPixels, 0, previousPixels, 0, canvasPixels.length);
+                }
+
+                graphics.setComposite(AlphaComposite.SrcOver);
+                graphics.drawImage(frame, left, top, null);
+                consumer.accept(canvas, delayMs < MIN_DELAY_MS ? defaultDelayMs : delayMs);
+
+                pendingDisposal = disposal;
+                disposeX = left;
+                disposeY = top;
+                disposeWidth = frame.getWidth();
+                disposeHeight = frame.getHeight();
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return frameCount;
+    }
+
+    private static int decodeSequence(File directory, int maxFrames, int defaultDelayMs, FrameConsumer consumer) throws IOException {
+        File[] files = directory.listFiles(file -> file.isFile() && SEQUENCE_EXTENSIONS.contains(getExtension(file)));
+        if (files == null) {
+            throw new IOException("Cannot list " + directory.getName());
+        }
+
+        List<SequenceFrame> frames = new ArrayList<>();
+        for (File file : files) {
+            Matcher matcher = FRAME_NUMBER.matcher(file.getName());
+            if (matcher.find()) {
+                frames.add(new SequenceFrame(file, Long.parseLong(matcher.group(1))));
+            }
+        }
+        frames.sort(Comparator.comparingLong(SequenceFrame::number).thenComparing(frame -> frame.file().getName()));
+
+        int count = 0;
+        for (SequenceFrame frame : frames) {
+            if (count >= maxFrames) {
+                break;
+            }
+            checkInterrupted();
+            BufferedImage image = ImageIO.read(frame.file());
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + frame.file().getName());
+            }
+            consumer.accept(image, defaultDelayMs);
+            count++;
+        }
+        return count;
+    }
+
+    private static String getExtension(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static Node findChild(Node parent, String name) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (name.equals(child.getNodeName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static String getAttribute(Node node, String name, String defaultValue) {
+        if (node == null) {
+            return defaultValue;
+        }
+        NamedNodeMap attributes = node.getAttributes();
+        Node attribute = attributes == null ? null : attributes.getNamedItem(name);
+        return attribute == null ? defaultValue : attribute.getNodeValue();
+    }
+
+    private static int getIntAttribute(Node node, String name, int defaultValue) {
+        try {
+            return Integer.parseInt(getAttribute(node, name, Integer.toString(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Animation decoding interrupted");
+        }
+    }
+
+    private record SequenceFrame(File file, long number) {
+    }
+}
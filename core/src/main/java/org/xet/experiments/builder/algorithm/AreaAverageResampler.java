@@ -0,0 +1,166 @@
+package org.xet.experiments.builder.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Уменьшение изображения усреднением по площади: каждый пиксель результата - среднее всех исходных
+ * пикселей под ним с дробными весами на границах. Исходные строки читаются через {@link ImageRaster}
+ * прямо из растра, без промежуточных BufferedImage и без Java2D. Веса считаются один раз на ось,
+ * строки результата обрабатываются независимыми полосами, поэтому большие изображения уменьшаются в fork-join пуле.
+ * Прозрачные пиксели накладываются на чёрный фон.
+ */
+public final class AreaAverageResampler {
+    private static final int MIN_ROWS_PER_TASK = 8;
+
+    private AreaAverageResampler() {
+    }
+
+    /**
+     * Возвращает пиксели 0xRRGGBB размером targetWidth x targetHeight по строкам
+     */
+    public static int[] resample(ImageRaster source, int targetWidth, int targetHeight, int parallelThreshold) {
+        AxisWeights columns = new AxisWeights(source.getWidth(), targetWidth);
+        AxisWeights rows = new AxisWeights(source.getHeight(), targetHeight);
+        int[] target = new int[targetWidth * targetHeight];
+
+        if ((long) targetWidth * targetHeight < parallelThreshold) {
+            resampleRows(source, target, targetWidth, columns, rows, 0, targetHeight);
+            return target;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int rowsPerTask = Math.max(MIN_ROWS_PER_TASK, targetHeight / (pool.getParallelism() * 4));
+        pool.invoke(new ResampleRowsTask(source, target, targetWidth, columns, rows, 0, targetHeight, rowsPerTask));
+        return target;
+    }
+
+    private static void resampleRows(ImageRaster source, int[] target, int targetWidth,
+                                     AxisWeights columns, AxisWeights rows, int fromRow, int toRow) {
+        // Суммы по каналам для одной строки результата и буфер одной исходной строки
+        float[] sums = new float[targetWidth * 3];
+        int[] rowBuffer = new int[source.getWidth()];
+        boolean alpha = source.hasAlpha();
+
+        for (int y = fromRow; y < toRow; y++) {
+            Arrays.fill(sums, 0f);
+            int rowWeightStart = rows.offsets[y];
+            for (int k = 0; k < rows.counts[y]; k++) {
+                float rowWeight = rows.weights[rowWeightStart + k];
+                int sourceY = rows.starts[y] + k;
+                int[] pixels = source.row(sourceY, rowBuffer);
+                int sourceRow = source.rowOffset(sourceY);
+
+                for (int x = 0; x < targetWidth; x++) {
+                    int columnWeightStart = columns.offsets[x];
+                    int sourceX = sourceRow + columns.starts[x];
+                    float r = 0f;
+                    float g = 0f;
+                    float b = 0f;
+                    for (int j = 0; j < columns.counts[x]; j++) {
+                        int argb = pixels[sourceX + j];
+                        float weight = columns.weights[columnWeightStart + j];
+                        if (alpha) {
+                            weight *= (argb >>> 24) / 255f;
+                        }
+                        r += weight * ((argb >> 16) & 0xFF);
+                        g += weight * ((argb >> 8) & 0xFF);
+                        b += weight * (argb & 0xFF);
+                    }
+                    int s = x * 3;
+                    sums[s] += rowWeight * r;
+                    sums[s + 1] += rowWeight * g;
+                    sums[s + 2] += rowWeight * b;
+                }
+            }
+
+            int targetRow = y * targetWidth;
+            for (int x = 0; x < targetWidth; x++) {
+                int s = x * 3;
+                target[targetRow + x] = (toChannel(sums[s]) << 16) | (toChannel(sums[s + 1]) << 8) | toChannel(sums[s + 2]);
+            }
+        }
+    }
+
+    private static int toChannel(float value) {
+        int rounded = Math.round(value);
+        return rounded < 0 ? 0 : Math.min(rounded, 255);
+    }
+
+    /**
+     * Веса исходных пикселей вдоль одной оси: для пикселя результата i это counts[i] пикселей,
+     * начиная со starts[i], с весами weights[offsets[i]..]; сумма весов равна единице
+     */
+    private static final class AxisWeights {
+        final int[] starts;
+        final int[] counts;
+        final int[] offsets;
+        final float[] weights;
+
+        AxisWeights(int sourceSize, int targetSize) {
+            starts = new int[targetSize];
+            counts = new int[targetSize];
+            offsets = new int[targetSize];
+            double scale = (double) sourceSize / targetSize;
+
+            int total = 0;
+            for (int i = 0; i < targetSize; i++) {
+                double from = i * scale;
+                double to = Math.min(sourceSize, (i + 1) * scale);
+                starts[i] = Math.min(sourceSize - 1, (int) from);
+                counts[i] = Math.max(1, (int) Math.ceil(to) - starts[i]);
+                offsets[i] = total;
+                total += counts[i];
+            }
+
+            weights = new float[total];
+            for (int i = 0; i < targetSize; i++) {
+                double from = i * scale;
+                double to = Math.min(sourceSize, (i + 1) * scale);
+                double length = Math.max(to - from, 1e-9);
+                for (int k = 0; k < counts[i]; k++) {
+                    int pixel = starts[i] + k;
+                    double covered = Math.min(to, pixel + 1) - Math.max(from, pixel);
+                    weights[offsets[i] + k] = (float) (Math.max(0.0, covered) / length);
+                }
+            }
+        }
+    }
+
+    private static class ResampleRowsTask extends RecursiveAction {
+        private final ImageRaster source;
+        private final int[] target;
+        private final int targetWidth;
+        private final AxisWeights columns;
+        private final AxisWeights rows;
+        private final int fromRow;
+        private final int toRow;
+        private final int rowsPerTask;
+
+        ResampleRowsTask(ImageRaster source, int[] target, int targetWidth, AxisWeights columns, AxisWeights rows,
+                         int fromRow, int toRow, int rowsPerTask) {
+            this.source = source;
+            this.target = target;
+            this.targetWidth = targetWidth;
+            this.columns = columns;
+            this.rows = rows;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= rowsPerTask) {
+                resampleRows(source, target, targetWidth, columns, rows, fromRow, toRow);
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(
+                    new ResampleRowsTask(source, target, targetWidth, columns, rows, fromRow, middle, rowsPerTask),
+                    new ResampleRowsTask(source, target, targetWidth, columns, rows, middle, toRow, rowsPerTask)
+            );
+        }
+    }
+}
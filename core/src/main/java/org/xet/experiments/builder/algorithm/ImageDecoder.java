@@ -0,0 +1,107 @@
+package org.xet.experiments.builder.algorithm;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Декодирование изображения сразу в разрешении, близком к целевому.
+ * Читатель пропускает строки и столбцы при декодировании (source subsampling),
+ * поэтому пиковая память зависит от размера результата, а не исходного файла.
+ */
+public final class ImageDecoder {
+    /**
+     * Во сколько раз декодированное изображение остаётся больше целевого,
+     * чтобы итоговое уменьшение усредняло пиксели, а не просто выбрасывало их
+     */
+    private static final int OVERSAMPLING = 2;
+
+    private ImageDecoder() {
+    }
+
+    public static BufferedImage decode(File file, int targetWidth, int targetHeight) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                throw new IOException("File not found");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(
+                        getSubsampling(reader.getWidth(0), targetWidth),
+                        getSubsampling(reader.getHeight(0), targetHeight),
+                        0, 0);
+                reader.addIIOReadProgressListener(new InterruptingProgressListener());
+
+                BufferedImage image = reader.read(0, param);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Image decoding interrupted");
+                }
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int getSubsampling(int sourceSize, int targetSize) {
+        return Math.max(1, sourceSize / Math.max(1, targetSize * OVERSAMPLING));
+    }
+
+    /**
+     * Останавливает декодирование, если поток генерации прерван по таймауту
+     */
+    private static class InterruptingProgressListener implements IIOReadProgressListener {
+        @Override
+        public void imageProgress(ImageReader source, float percentageDone) {
+            if (Thread.currentThread().isInterrupted()) {
+                source.abort();
+            }
+        }
+
+        @Override
+        public void sequenceStarted(ImageReader source, int minIndex) {
+        }
+
+        @Override
+        public void sequenceComplete(ImageReader source) {
+        }
+
+        @Override
+        public void imageStarted(ImageReader source, int imageIndex) {
+        }
+
+        @Override
+        public void imageComplete(ImageReader source) {
+        }
+
+        @Override
+        public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {
+        }
+
+        @Override
+        public void thumbnailProgress(ImageReader source, float percentageDone) {
+        }
+
+        @Override
+        public void thumbnailComplete(ImageReader source) {
+        }
+
+        @Override
+        public void readAborted(ImageReader source) {
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.xet.experiments.builder.algorithm;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Построчное чтение пикселей изображения прямо из массивов растра, без getRGB и ColorModel.
+ * Для int-растров строка отдаётся из массива изображения без копирования, байтовые форматы
+ * (BGR, ABGR, индексированные, оттенки серого) переводятся в ARGB в буфер на одну строку.
+ * Остальные типы читаются через getRGB, но тоже по одной строке.
+ */
+public abstract class ImageRaster {
+    private final int width;
+    private final int height;
+    private final boolean alpha;
+
+    private ImageRaster(int width, int height, boolean alpha) {
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+    }
+
+    public static ImageRaster of(BufferedImage image) {
+        Raster raster = image.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        // Растр может быть частью большего: учитываем сдвиг модели
+        int translateX = -raster.getSampleModelTranslateX();
+        int translateY = -raster.getSampleModelTranslateY();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_ARGB_PRE -> {
+                if (raster.getDataBuffer() instanceof DataBufferInt buffer
+                        && sampleModel instanceof SinglePixelPackedSampleModel packed) {
+                    int stride = packed.getScanlineStride();
+                    int offset = buffer.getOffset() + translateY * stride + translateX;
+                    // Предумноженные цвета уже наложены на чёрный фон, альфа больше не нужна
+                    boolean alpha = image.getType() == BufferedImage.TYPE_INT_ARGB;
+                    return new IntRaster(image.getWidth(), image.getHeight(), alpha, buffer.getData(), offset, stride);
+                }
+            }
+            case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY -> {
+                if (raster.getDataBuffer() instanceof DataBufferByte buffer
+                        && sampleModel instanceof ComponentSampleModel component) {
+                    int stride = component.getScanlineStride();
+                    int pixelStride = component.getPixelStride();
+                    int offset = buffer.getOffset() + translateY * stride + translateX * pixelStride;
+                    return new ByteRaster(image.getWidth(), image.getHeight(), image.getType(), buffer.getData(),
+                            offset, stride, component.getBandOffsets());
+                }
+            }
+            case BufferedImage.TYPE_BYTE_INDEXED -> {
+                if (raster.getDataBuffer() instanceof DataBufferByte buffer
+                        && sampleModel instanceof ComponentSampleModel component
+                        && component.getPixelStride() == 1
+                        && image.getColorModel() instanceof IndexColorModel colorModel) {
+                    int stride = component.getScanlineStride();
+                    int offset = buffer.getOffset() + translateY * stride + translateX;
+                    int[] palette = new int[256];
+                    colorModel.getRGBs(palette);
+                    return new IndexedRaster(image.getWidth(), image.getHeight(), colorModel.hasAlpha(),
+                            buffer.getData(), offset, stride, palette);
+                }
+            }
+            default -> {
+            }
+        }
+        return new GenericRaster(image);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Есть ли в старшем байте пикселей прозрачность; иначе старший байт не определён и не читается
+     */
+    public boolean hasAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Возвращает массив со строкой y в формате ARGB, начиная с {@link #rowOffset(int)}.
+     * Это либо массив самого изображения, либо переданный буфер длиной не меньше ширины
+     */
+    public abstract int[] row(int y, int[] buffer);
+
+    /**
+     * Смещение строки y в массиве, который вернул {@link #row(int, int[])}
+     */
+    public abstract int rowOffset(int y);
+
+    private static final class IntRaster extends ImageRaster {
+        private final int[] data;
+        private final int offset;
+        private final int stride;
+
+        IntRaster(int width, int height, boolean alpha, int[] data, int offset, int stride) {
+            super(width, height, alpha);
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+        }
+
+        @Override
+        public int[] row(int y, int[] buffer) {
+            return data;
+        }
+
+        @Override
+        public int rowOffset(int y) {
+            return offset + y * stride;
+        }
+    }
+
+    private static final class ByteRaster extends ImageRaster {
+        private final int type;
+        private final byte[] data;
+        private final int offset;
+        private final int stride;
+        private final int[] bandOffsets;
+
+        ByteRaster(int width, int height, int type, byte[] data, int offset, int stride, int[] bandOffsets) {
+            super(width, height, type == BufferedImage.TYPE_4BYTE_ABGR);
+            this.type = type;
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+            this.bandOffsets = bandOffsets;
+        }
+
+        @Override
+        public int[] row(int y, int[] buffer) {
+            int width = getWidth();
+            int p = offset + y * stride;
+            switch (type) {
+                case BufferedImage.TYPE_3BYTE_BGR -> {
+                    int r = bandOffsets[0];
+                    int g = bandOffsets[1];
+                    int b = bandOffsets[2];
+                    for (int x = 0; x < width; x++, p += 3) {
+                        buffer[x] = ((data[p + r] & 0xFF) << 16) | ((data[p + g] & 0xFF) << 8) | (data[p + b] & 0xFF);
+                    }
+                }
+                case BufferedImage.TYPE_4BYTE_ABGR -> {
+                    int r = bandOffsets[0];
+                    int g = bandOffsets[1];
+                    int b = bandOffsets[2];
+                    int a = bandOffsets[3];
+                    for (int x = 0; x < width; x++, p += 4) {
+                        buffer[x] = ((data[p + a] & 0xFF) << 24) | ((data[p + r] & 0xFF) << 16)
+                                | ((data[p + g] & 0xFF) << 8) | (data[p + b] & 0xFF);
+                    }
+                }
+                default -> {
+                    // Значение серого берётся как есть, в sRGB, как его записал редактор
+                    p += bandOffsets[0];
+                    for (int x = 0; x < width; x++, p++) {
+                        int gray = data[p] & 0xFF;
+                        buffer[x] = (gray << 16) | (gray << 8) | gray;
+                    }
+                }
+            }
+            return buffer;
+        }
+
+        @Override
+        public int rowOffset(int y) {
+            return 0;
+        }
+    }
+
+    private static final class IndexedRaster extends ImageRaster {
+        private final byte[] data;
+        private final int offset;
+        private final int stride;
+        private final int[] palette;
+
+        IndexedRaster(int width, int height, boolean alpha, byte[] data, int offset, int stride, int[] palette) {
+            super(width, height, alpha);
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+            this.palette = palette;
+        }
+
+        @Override
+        public int[] row(int y, int[] buffer) {
+            int width = getWidth();
+            int p = offset + y * stride;
+            for (int x = 0; x < width; x++) {
+                buffer[x] = palette[data[p + x] & 0xFF];
+            }
+            return buffer;
+        }
+
+        @Override
+        public int rowOffset(int y) {
+            return 0;
+        }
+    }
+
+    private static final class GenericRaster extends ImageRaster {
+        private final BufferedImage image;
+
+        GenericRaster(BufferedImage image) {
+            super(image.getWidth(), image.getHeight(), image.getColorModel().hasAlpha());
+            this.image = image;
+        }
+
+        @Override
+        public int[] row(int y, int[] buffer) {
+            return image.getRGB(0, y, getWidth(), 1, buffer, 0, getWidth());
+        }
+
+        @Override
+        public int rowOffset(int y) {
+            return 0;
+        }
+    }
+}
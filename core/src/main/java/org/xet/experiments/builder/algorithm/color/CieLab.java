@@ -0,0 +1,42 @@
+package org.xet.experiments.builder.algorithm.color;
+
+/**
+ * Перевод sRGB в CIELAB (опорный белый D65). Расстояние в Lab (ΔE76) ближе к тому,
+ * как глаз различает цвета, чем расстояние в RGB.
+ */
+final class CieLab {
+    private static final double EPSILON = 216.0 / 24389.0;
+    private static final double KAPPA = 24389.0 / 27.0;
+    private static final double WHITE_X = 0.95047;
+    private static final double WHITE_Z = 1.08883;
+    private static final double[] LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR[i] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private CieLab() {
+    }
+
+    /**
+     * Записывает L, a, b цвета в out[offset..offset + 2]
+     */
+    static void fromRgb(int r, int g, int b, double[] out, int offset) {
+        double lr = LINEAR[r];
+        double lg = LINEAR[g];
+        double lb = LINEAR[b];
+        double fx = f((0.4124564 * lr + 0.3575761 * lg + 0.1804375 * lb) / WHITE_X);
+        double fy = f(0.2126729 * lr + 0.7151522 * lg + 0.0721750 * lb);
+        double fz = f((0.0193339 * lr + 0.1191920 * lg + 0.9503041 * lb) / WHITE_Z);
+        out[offset] = 116.0 * fy - 16.0;
+        out[offset + 1] = 500.0 * (fx - fy);
+        out[offset + 2] = 200.0 * (fy - fz);
+    }
+
+    private static double f(double t) {
+        return t > EPSILON ? Math.cbrt(t) : (KAPPA * t + 16.0) / 116.0;
+    }
+}
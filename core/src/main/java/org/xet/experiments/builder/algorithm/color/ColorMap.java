@@ -0,0 +1,58 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import org.xet.experiments.builder.algorithm.AreaAverageResampler;
+import org.xet.experiments.builder.algorithm.ImageRaster;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.awt.image.BufferedImage;
+
+public class ColorMap {
+    BufferedImage image;
+    private PaletteMaterial material = PaletteMaterial.CONCRETE_POWDER;
+    private DitheringMode dithering = DitheringMode.NONE;
+    private int parallelThreshold = ColorQuantizer.DEFAULT_PARALLEL_THRESHOLD;
+
+    public ColorMap(BufferedImage image) {
+        this.image = image;
+    }
+
+    /**
+     * Материал, в цвета которого квантуется изображение
+     */
+    public ColorMap setMaterial(PaletteMaterial material) {
+        this.material = material;
+        return this;
+    }
+
+    /**
+     * Сглаживание между уменьшением изображения и квантованием
+     */
+    public ColorMap setDithering(DitheringMode dithering) {
+        this.dithering = dithering;
+        return this;
+    }
+
+    /**
+     * Минимальный размер сетки в пикселях, начиная с которого уменьшение и квантование идут в несколько потоков
+     */
+    public ColorMap setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * Уменьшает изображение до размеров сетки усреднением по площади и квантует прямо в её массив цветов
+     */
+    public void fillColorMap(ColorHeightMaps grid) {
+        fillColors(grid.colors(), grid.width(), grid.height());
+    }
+
+    /**
+     * То же для отдельного массива цветов width x height, например для кадра анимации
+     */
+    public void fillColors(byte[] colors, int width, int height) {
+        // Пиксели идут по строкам - тот же порядок, что и в сетке
+        int[] data = AreaAverageResampler.resample(ImageRaster.of(image), width, height, parallelThreshold);
+        ColorQuantizer.quantize(data, colors, width, height, material, dithering, parallelThreshold);
+    }
+}
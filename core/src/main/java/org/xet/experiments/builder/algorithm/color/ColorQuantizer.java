@@ -0,0 +1,123 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Квантование пикселей в индексы палитры через {@link PaletteLookupTable} с необязательным сглаживанием.
+ * Без сглаживания и с матрицей Байера каждый пиксель зависит только от себя, поэтому большие изображения
+ * делятся на полосы строк и обрабатываются в fork-join пуле, а результат совпадает с последовательным.
+ * Диффузия ошибки последовательна по строкам и всегда выполняется в одном потоке.
+ */
+public final class ColorQuantizer {
+    /**
+     * Изображения меньше этого числа пикселей квантуются в одном потоке
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256 * 256;
+    private static final int MIN_ROWS_PER_TASK = 16;
+    private static final int[] BAYER_MATRIX = {
+            0, 32, 8, 40, 2, 34, 10, 42,
+            48, 16, 56, 24, 50, 18, 58, 26,
+            12, 44, 4, 36, 14, 46, 6, 38,
+            60, 28, 52, 20, 62, 30, 54, 22,
+            3, 35, 11, 43, 1, 33, 9, 41,
+            51, 19, 59, 27, 49, 17, 57, 25,
+            15, 47, 7, 39, 13, 45, 5, 37,
+            63, 31, 55, 23, 61, 29, 53, 21
+    };
+    // Размах сдвига порога: примерно расстояние между соседними цветами палитры
+    private static final int BAYER_SPREAD = 48;
+    private static final int[] BAYER_OFFSETS = new int[BAYER_MATRIX.length];
+
+    static {
+        for (int i = 0; i < BAYER_MATRIX.length; i++) {
+            BAYER_OFFSETS[i] = (int) Math.round(((BAYER_MATRIX[i] + 0.5) / BAYER_MATRIX.length - 0.5) * BAYER_SPREAD);
+        }
+    }
+
+    private ColorQuantizer() {
+    }
+
+    public static void quantize(int[] pixels, byte[] target, int width, int height, PaletteMaterial material,
+                                DitheringMode dithering, int parallelThreshold) {
+        PaletteLookupTable lookupTable = PaletteLookupTable.getInstance(material);
+        if (dithering == DitheringMode.FLOYD_STEINBERG) {
+            FloydSteinbergDitherer.dither(lookupTable, lookupTable.getPalette(), pixels, target, width, height);
+            return;
+        }
+
+        boolean ordered = dithering == DitheringMode.BAYER;
+        if ((long) width * height < parallelThreshold) {
+            quantizeRows(lookupTable, pixels, target, width, 0, height, ordered);
+            return;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int rowsPerTask = Math.max(MIN_ROWS_PER_TASK, height / (pool.getParallelism() * 4));
+        pool.invoke(new QuantizeRowsTask(lookupTable, pixels, target, width, 0, height, ordered, rowsPerTask));
+    }
+
+    private static void quantizeRows(PaletteLookupTable lookupTable, int[] pixels, byte[] target, int width,
+                                     int fromRow, int toRow, boolean ordered) {
+        if (!ordered) {
+            int end = toRow * width;
+            for (int i = fromRow * width; i < end; i++) {
+                target[i] = (byte) lookupTable.lookupIndex(pixels[i]);
+            }
+            return;
+        }
+
+        for (int y = fromRow; y < toRow; y++) {
+            int rowStart = y * width;
+            int matrixRow = (y & 7) << 3;
+            for (int x = 0; x < width; x++) {
+                int offset = BAYER_OFFSETS[matrixRow | (x & 7)];
+                int rgb = pixels[rowStart + x];
+                int r = clamp(((rgb >> 16) & 0xFF) + offset);
+                int g = clamp(((rgb >> 8) & 0xFF) + offset);
+                int b = clamp((rgb & 0xFF) + offset);
+                target[rowStart + x] = (byte) lookupTable.lookupIndex((r << 16) | (g << 8) | b);
+            }
+        }
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    private static class QuantizeRowsTask extends RecursiveAction {
+        private final PaletteLookupTable lookupTable;
+        private final int[] pixels;
+        private final byte[] target;
+        private final int width;
+        private final int fromRow;
+        private final int toRow;
+        private final boolean ordered;
+        private final int rowsPerTask;
+
+        QuantizeRowsTask(PaletteLookupTable lookupTable, int[] pixels, byte[] target, int width, int fromRow, int toRow,
+                         boolean ordered, int rowsPerTask) {
+            this.lookupTable = lookupTable;
+            this.pixels = pixels;
+            this.target = target;
+            this.width = width;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.ordered = ordered;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= rowsPerTask) {
+                quantizeRows(lookupTable, pixels, target, width, fromRow, toRow, ordered);
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(
+                    new QuantizeRowsTask(lookupTable, pixels, target, width, fromRow, middle, ordered, rowsPerTask),
+                    new QuantizeRowsTask(lookupTable, pixels, target, width, middle, toRow, ordered, rowsPerTask)
+            );
+        }
+    }
+}
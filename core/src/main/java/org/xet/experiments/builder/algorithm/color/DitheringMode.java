@@ -0,0 +1,34 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import java.util.Locale;
+
+/**
+ * Сглаживание переходов цвета при квантовании: без него плавные градиенты распадаются на полосы
+ */
+public enum DitheringMode {
+    /**
+     * Ближайший цвет палитры для каждого пикселя
+     */
+    NONE,
+    /**
+     * Диффузия ошибки Флойда-Стейнберга: ошибка пикселя распределяется на ещё не обработанных соседей
+     */
+    FLOYD_STEINBERG,
+    /**
+     * Упорядоченное сглаживание матрицей Байера: пиксели независимы, поэтому обрабатываются параллельно
+     */
+    BAYER;
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static DitheringMode fromName(String name) {
+        for (DitheringMode mode : values()) {
+            if (mode.getName().equals(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dithering mode: " + name);
+    }
+}
@@ -0,0 +1,54 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import java.util.Arrays;
+
+/**
+ * Диффузия ошибки Флойда-Стейнберга поверх таблицы квантования.
+ * Изображение обходится по строкам, в памяти только ошибки текущей и следующей строки,
+ * поэтому дополнительная память - O(ширина) независимо от высоты изображения.
+ */
+final class FloydSteinbergDitherer {
+    private FloydSteinbergDitherer() {
+    }
+
+    static void dither(PaletteLookupTable lookupTable, int[] palette, int[] pixels, byte[] target, int width, int height) {
+        // Ошибки по каналам в шестнадцатых долях, с отступом в один пиксель по краям строки
+        int[] current = new int[(width + 2) * 3];
+        int[] next = new int[(width + 2) * 3];
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[rowStart + x];
+                int k = (x + 1) * 3;
+                int r = clamp(((rgb >> 16) & 0xFF) + ((current[k] + 8) >> 4));
+                int g = clamp(((rgb >> 8) & 0xFF) + ((current[k + 1] + 8) >> 4));
+                int b = clamp((rgb & 0xFF) + ((current[k + 2] + 8) >> 4));
+
+                int index = lookupTable.lookupIndex((r << 16) | (g << 8) | b);
+                target[rowStart + x] = (byte) index;
+
+                int chosen = palette[index];
+                diffuse(current, next, k, r - ((chosen >> 16) & 0xFF));
+                diffuse(current, next, k + 1, g - ((chosen >> 8) & 0xFF));
+                diffuse(current, next, k + 2, b - (chosen & 0xFF));
+            }
+
+            int[] swap = current;
+            current = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+    }
+
+    private static void diffuse(int[] current, int[] next, int k, int error) {
+        current[k + 3] += error * 7;
+        next[k - 3] += error * 3;
+        next[k] += error * 5;
+        next[k + 3] += error;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+}
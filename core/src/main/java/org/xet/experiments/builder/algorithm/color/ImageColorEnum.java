@@ -4,6 +4,7 @@ public enum ImageColorEnum {
     WHITE,
     ORANGE,
     MAGENTA,
+    LIGHT_BLUE,
     LIGHT_GRAY,
     YELLOW,
     LIME,
@@ -0,0 +1,48 @@
+package org.xet.experiments.builder.algorithm.color;
+
+/**
+ * Цвета блоков на карте Minecraft (MapColor, 1.19.3) в порядке {@link ImageColorEnum}, 0xRRGGBB.
+ * Бетон, цемент и шерсть одного цвета красителя используют общий цвет, у терракоты свои, более тусклые.
+ */
+final class MapColors {
+    static final int[] DYE = {
+            0xFFFFFF, // white
+            0xD87F33, // orange
+            0xB24CD8, // magenta
+            0x6699D8, // light_blue
+            0x999999, // light_gray
+            0xE5E533, // yellow
+            0x7FCC19, // lime
+            0xF27FA5, // pink
+            0x4C4C4C, // gray
+            0x4C7F99, // cyan
+            0x7F3FB2, // purple
+            0x334CB2, // blue
+            0x664C33, // brown
+            0x667F33, // green
+            0x993333, // red
+            0x191919, // black
+    };
+
+    static final int[] TERRACOTTA = {
+            0xD1B1A1, // white
+            0x9F5224, // orange
+            0x95576C, // magenta
+            0x706C8A, // light_blue
+            0x876B62, // light_gray
+            0xBA8524, // yellow
+            0x677535, // lime
+            0xA04D4E, // pink
+            0x392923, // gray
+            0x575C5C, // cyan
+            0x7A4958, // purple
+            0x4C3E5C, // blue
+            0x4C3223, // brown
+            0x4C522A, // green
+            0x8E3C2E, // red
+            0x251610, // black
+    };
+
+    private MapColors() {
+    }
+}
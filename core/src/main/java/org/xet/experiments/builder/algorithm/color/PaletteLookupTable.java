@@ -0,0 +1,93 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Таблица квантования: упакованный 24-битный RGB -> ближайший цвет палитры материала.
+ * Ближайший цвет ищется по расстоянию в CIELAB (ΔE76) до настоящих цветов блоков на карте.
+ * Перевод в Lab и поиск выполняются один раз при построении таблицы (16M байт на материал),
+ * после чего поиск цвета для пикселя - одно чтение из массива без аллокаций.
+ */
+public final class PaletteLookupTable {
+    private static final int SIZE = 1 << 24;
+    private static final ImageColorEnum[] COLORS = ImageColorEnum.values();
+    private static final Map<PaletteMaterial, PaletteLookupTable> TABLES = new EnumMap<>(PaletteMaterial.class);
+
+    private final int[] palette;
+    private final byte[] table = new byte[SIZE];
+
+    private PaletteLookupTable(int[] palette) {
+        this.palette = palette;
+        int count = palette.length;
+        double[] paletteLab = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            int rgb = palette[i];
+            CieLab.fromRgb((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, paletteLab, i * 3);
+        }
+
+        // Каждый поток заполняет свой срез по красному каналу
+        IntStream.range(0, 256).parallel().forEach(r -> {
+            double[] lab = new double[3];
+            int base = r << 16;
+            for (int g = 0; g < 256; g++) {
+                for (int b = 0; b < 256; b++) {
+                    CieLab.fromRgb(r, g, b, lab, 0);
+                    int best = 0;
+                    double minDistance = Double.MAX_VALUE;
+                    for (int i = 0; i < count; i++) {
+                        double lDiff = lab[0] - paletteLab[i * 3];
+                        double aDiff = lab[1] - paletteLab[i * 3 + 1];
+                        double bDiff = lab[2] - paletteLab[i * 3 + 2];
+                        double distance = lDiff * lDiff + aDiff * aDiff + bDiff * bDiff;
+                        if (distance < minDistance) {
+                            minDistance = distance;
+                            best = i;
+                        }
+                    }
+                    // Палитра идёт в порядке ImageColorEnum, индекс цвета и есть его номер
+                    table[base | (g << 8) | b] = (byte) best;
+                }
+            }
+        });
+    }
+
+    /**
+     * Таблица для материала; строится при первом обращении и общая для материалов с одинаковыми цветами
+     */
+    public static synchronized PaletteLookupTable getInstance(PaletteMaterial material) {
+        PaletteLookupTable table = TABLES.get(material);
+        if (table != null) {
+            return table;
+        }
+        int[] palette = material.getMapColors();
+        for (PaletteLookupTable existing : TABLES.values()) {
+            if (Arrays.equals(existing.palette, palette)) {
+                table = existing;
+                break;
+            }
+        }
+        if (table == null) {
+            table = new PaletteLookupTable(palette);
+        }
+        TABLES.put(material, table);
+        return table;
+    }
+
+    /**
+     * Цвета палитры, 0xRRGGBB; индекс совпадает с результатом {@link #lookupIndex}
+     */
+    int[] getPalette() {
+        return palette;
+    }
+
+    public int lookupIndex(int rgb) {
+        return table[rgb & 0xFFFFFF];
+    }
+
+    public ImageColorEnum lookup(int rgb) {
+        return COLORS[table[rgb & 0xFFFFFF]];
+    }
+}
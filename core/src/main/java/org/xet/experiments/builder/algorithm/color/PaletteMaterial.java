@@ -0,0 +1,39 @@
+package org.xet.experiments.builder.algorithm.color;
+
+import java.util.Locale;
+
+/**
+ * Материал, из которого строится изображение. В каждом материале есть все 16 цветов {@link ImageColorEnum}.
+ */
+public enum PaletteMaterial {
+    CONCRETE_POWDER(MapColors.DYE),
+    CONCRETE(MapColors.DYE),
+    WOOL(MapColors.DYE),
+    TERRACOTTA(MapColors.TERRACOTTA);
+
+    private final int[] mapColors;
+
+    PaletteMaterial(int[] mapColors) {
+        this.mapColors = mapColors;
+    }
+
+    /**
+     * Цвета блоков материала на карте, 0xRRGGBB; индекс - порядковый номер {@link ImageColorEnum}
+     */
+    int[] getMapColors() {
+        return mapColors;
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static PaletteMaterial fromName(String name) {
+        for (PaletteMaterial material : values()) {
+            if (material.getName().equals(name)) {
+                return material;
+            }
+        }
+        throw new IllegalArgumentException("Unknown palette material: " + name);
+    }
+}
@@ -0,0 +1,443 @@
+package org.xet.experiments.builder.algorithm.height_map;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class GeneratorGame extends GeneratorHeightMap {
+    @Override
+    public void fillHeightMap(ColorHeightMaps grid, SplittableRandom random) {
+        GameGenerator generator = new GameGenerator(grid, random);
+        generator.init();
+        while (generator.tick()) {
+            checkInterrupted();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "game";
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+
+    class Constants {
+        public static final int BRUSH_STRENGTH = 3;
+        public static final int NUM_POINTS_FOR_DIRECTION = 10;
+        public static final double VELOCITY_MULTIPLIER = 0.1;
+        public static final int VELOCITY_TIME_STEP = 1;
+        public static final int VELOCITY_DISTANCE_TO_TARGET_FOR_SLOW_SPEED = 8;
+        public static final double MAX_SPEED = 0.7;
+    }
+
+    /**
+     * Кисть: список пар (предыдущая клетка, клетка) относительно центра.
+     * Клетка заполняется высотой предыдущей + 1. Для диагональных клеток предыдущая выбирается
+     * случайно из двух соседей, поэтому все возможные варианты маски строятся один раз заранее,
+     * а при заливке выбирается один из них.
+     */
+    static class Brush {
+        private static final Brush DEFAULT = new Brush(Constants.BRUSH_STRENGTH);
+
+        private final int[][] prevDx;
+        private final int[][] prevDy;
+        private final int[][] dx;
+        private final int[][] dy;
+        // Смещения клеток маски без повторов, одинаковые для всех вариантов
+        private final int[] cellDx;
+        private final int[] cellDy;
+
+        private Brush(int strength) {
+            int randomChoices = 0;
+            for (int curStrength = 0; curStrength < strength; curStrength++) {
+                for (int hStrength = 0; hStrength < strength && curStrength - hStrength >= 0; hStrength++) {
+                    int x = curStrength - hStrength;
+                    if (x > 0 && hStrength > 0) {
+                        randomChoices++;
+                    }
+                }
+            }
+
+            int variants = 1 << randomChoices;
+            prevDx = new int[variants][];
+            prevDy = new int[variants][];
+            dx = new int[variants][];
+            dy = new int[variants][];
+            for (int variant = 0; variant < variants; variant++) {
+                buildVariant(strength, variant);
+            }
+            cellDx = distinctCells(dx[0], dy[0], true);
+            cellDy = distinctCells(dx[0], dy[0], false);
+        }
+
+        public static Brush getDefault() {
+            return DEFAULT;
+        }
+
+        private void buildVariant(int strength, int variant) {
+            List<int[]> mask = new ArrayList<>();
+            int choice = 0;
+            for (int curStrength = 0; curStrength < strength; curStrength++) {
+                for (int hStrength = 0; hStrength < strength; hStrength++) {
+                    if (curStrength - hStrength < 0) break;
+                    if (curStrength == 0 && hStrength == 0) continue;
+
+                    int x = curStrength - hStrength;
+                    int y = hStrength;
+                    int px;
+                    int py;
+                    if (x > 0 && y > 0) {
+                        boolean useLeft = ((variant >> choice++) & 1) == 0;
+                        px = useLeft ? x - 1 : x;
+                        py = useLeft ? y : y - 1;
+                    } else if (x > 0) {
+                        px = x - 1;
+                        py = y;
+                    } else {
+                        px = x;
+                        py = y - 1;
+                    }
+                    mask.add(new int[]{px, py, x, y});
+                }
+            }
+
+            // Отражённые копии, в том же порядке, что и у исходного алгоритма
+            int[][] muls = {{-1, 1}, {1, -1}, {-1, -1}};
+            for (int[] mul : muls) {
+                List<int[]> newMask = new ArrayList<>();
+                for (int[] entry : mask) {
+                    newMask.add(new int[]{entry[0] * mul[0], entry[1] * mul[1], entry[2] * mul[0], entry[3] * mul[1]});
+                }
+                mask.addAll(newMask);
+            }
+
+            List<int[]> distinct = new ArrayList<>();
+            for (int[] entry : mask) {
+                boolean seen = false;
+                for (int[] other : distinct) {
+                    if (Arrays.equals(entry, other)) {
+                        seen = true;
+                        break;
+                    }
+                }
+                if (!seen) {
+                    distinct.add(entry);
+                }
+            }
+
+            int size = distinct.size();
+            prevDx[variant] = new int[size];
+            prevDy[variant] = new int[size];
+            dx[variant] = new int[size];
+            dy[variant] = new int[size];
+            for (int i = 0; i < size; i++) {
+                int[] entry = distinct.get(i);
+                prevDx[variant][i] = entry[0];
+                prevDy[variant][i] = entry[1];
+                dx[variant][i] = entry[2];
+                dy[variant][i] = entry[3];
+            }
+        }
+
+        private static int[] distinctCells(int[] xs, int[] ys, boolean takeX) {
+            List<Integer> result = new ArrayList<>();
+            List<Long> seen = new ArrayList<>();
+            for (int i = 0; i < xs.length; i++) {
+                long key = ((long) xs[i] << 32) | (ys[i] & 0xFFFFFFFFL);
+                if (!seen.contains(key)) {
+                    seen.add(key);
+                    result.add(takeX ? xs[i] : ys[i]);
+                }
+            }
+            return result.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        public int getVariantCount() {
+            return dx.length;
+        }
+    }
+
+    static class Filler {
+        private final GameGenerator generator;
+        private final Brush brush;
+        private double positionX;
+        private double positionY;
+        private int targetX;
+        private int targetY;
+        private double velocityX;
+        private double velocityY;
+
+        public Filler(GameGenerator generator, int x, int y) {
+            this.generator = generator;
+            this.brush = Brush.getDefault();
+            this.positionX = x;
+            this.positionY = y;
+            this.targetX = cellX();
+            this.targetY = cellY();
+            this.velocityX = generator.random.nextDouble() * 2 - 1;
+            this.velocityY = generator.random.nextDouble() * 2 - 1;
+        }
+
+        public void init(boolean firstTick) {
+            if (firstTick) {
+                generator.setCoordinate(cellX(), cellY(), 0);
+            }
+            fill();
+            chooseNewDirection();
+        }
+
+        public void tick() {
+            positionX += velocityX;
+            positionY += velocityY;
+
+            if (positionX < 0) {
+                positionX = 0;
+                velocityX = -velocityX;
+            } else if (positionX >= generator.width) {
+                positionX = generator.width - 1;
+                velocityX = -velocityX;
+            }
+
+            if (positionY < 0) {
+                positionY = 0;
+                velocityY = -velocityY;
+            } else if (positionY >= generator.height) {
+                positionY = generator.height - 1;
+                velocityY = -velocityY;
+            }
+
+            fill();
+
+            if (cellX() == targetX && cellY() == targetY) {
+                chooseNewDirection();
+            }
+
+            double toX = targetX - positionX;
+            double toY = targetY - positionY;
+            double distanceToTarget = Math.sqrt(toX * toX + toY * toY);
+            double directionX = distanceToTarget == 0 ? 0 : toX / distanceToTarget;
+            double directionY = distanceToTarget == 0 ? 0 : toY / distanceToTarget;
+            double speed = Math.sqrt(velocityX * velocityX + velocityY * velocityY);
+
+            if (distanceToTarget < speed * Constants.VELOCITY_DISTANCE_TO_TARGET_FOR_SLOW_SPEED) {
+                velocityX = directionX * distanceToTarget;
+                velocityY = directionY * distanceToTarget;
+            } else {
+                velocityX += directionX * Constants.VELOCITY_MULTIPLIER;
+                velocityY += directionY * Constants.VELOCITY_MULTIPLIER;
+            }
+
+            speed = Math.sqrt(velocityX * velocityX + velocityY * velocityY);
+            if (speed > Constants.MAX_SPEED) {
+                velocityX = velocityX / speed * Constants.MAX_SPEED;
+                velocityY = velocityY / speed * Constants.MAX_SPEED;
+            }
+        }
+
+        /**
+         * Выбирает новую цель среди случайных незаполненных клеток - ту, вокруг которой больше всего пустоты
+         */
+        public void chooseNewDirection() {
+            int availablePoints = generator.getFreeCount();
+            int currentCell = generator.isInside(cellX(), cellY()) ? generator.grid.index(cellX(), cellY()) : -1;
+
+            // Свободна только клетка под заполнителем - выбирать больше не из чего
+            if (availablePoints == 0 || (availablePoints == 1 && generator.getFreeCell(0) == currentCell)) {
+                targetX = cellX();
+                targetY = cellY();
+                return;
+            }
+
+            int needed = Math.min(availablePoints, Constants.NUM_POINTS_FOR_DIRECTION);
+            int found = 0;
+            double bestWeight = Double.NEGATIVE_INFINITY;
+            int bestCell = -1;
+            while (found < needed) {
+                int cell = generator.getFreeCell(generator.random.nextInt(availablePoints));
+                if (cell == currentCell) continue;
+                found++;
+
+                double weight = getWeightOfPoint(cell % generator.width, cell / generator.width);
+                if (weight > bestWeight) {
+                    bestWeight = weight;
+                    bestCell = cell;
+                }
+            }
+
+            targetX = bestCell % generator.width;
+            targetY = bestCell / generator.width;
+        }
+
+        /**
+         * Вес незаполненной клетки: число пустых (или лежащих за краем) клеток под кистью
+         */
+        public double getWeightOfPoint(int x, int y) {
+            int[] cellDx = brush.cellDx;
+            int[] cellDy = brush.cellDy;
+            int empty = 0;
+            for (int i = 0; i < cellDx.length; i++) {
+                if (generator.getCoordinate(x + cellDx[i], y + cellDy[i]) < 0) {
+                    empty++;
+                }
+            }
+            double value = empty * 1.5 * (generator.getCoordinate(x, y) < 0 ? 1 : 0);
+            return value + 1;
+        }
+
+        public void fill() {
+            generator.fillMask(cellX(), cellY(), brush, generator.random.nextInt(brush.getVariantCount()));
+        }
+
+        private int cellX() {
+            return (int) Math.round(positionX);
+        }
+
+        private int cellY() {
+            return (int) Math.round(positionY);
+        }
+    }
+
+    static class GameGenerator {
+        public final int width;
+        public final int height;
+        private final ColorHeightMaps grid;
+        // Высоты пишутся прямо в сетку, -1 - клетка ещё не заполнена
+        private final int[] map;
+        // Незаполненные клетки: плотный список и позиция каждой клетки в нём
+        private final int[] freeCells;
+        private final int[] freePositions;
+        private int freeCount;
+        private final SplittableRandom random;
+        private final List<Filler> fillers = new ArrayList<>();
+        public boolean isInited = false;
+
+        public GameGenerator(ColorHeightMaps grid, SplittableRandom random) {
+            this.grid = grid;
+            this.width = grid.width();
+            this.height = grid.height();
+            this.map = grid.heights();
+            this.random = random;
+            Arrays.fill(map, -1);
+
+            int size = grid.size();
+            this.freeCells = new int[size];
+            this.freePositions = new int[size];
+            for (int i = 0; i < size; i++) {
+                freeCells[i] = i;
+                freePositions[i] = i;
+            }
+            this.freeCount = size;
+        }
+
+        public void init() {
+            spawnFiller(random.nextInt(width), random.nextInt(height));
+            isInited = true;
+        }
+
+        public boolean tick() {
+            if (checkMapIsComplete()) return false;
+
+            int count = fillers.size();
+            for (int i = 0; i < count; i++) {
+                if (needSpawnFiller()) {
+                    Filler filler = fillers.get(i);
+                    spawnFiller(filler.cellX(), filler.cellY());
+                }
+            }
+
+            for (Filler filler : fillers) {
+                filler.tick();
+            }
+
+            return true;
+        }
+
+        public boolean needSpawnFiller() {
+            return 0.05 * (1 / (getFillingMap() / 10.0) / 1000.0) * ((width * height) / 100.0) / Math.pow(fillers.size(), 2) > random.nextDouble();
+        }
+
+        public double getFillingMap() {
+            return (map.length - freeCount) / (double) (width * height);
+        }
+
+        public boolean isInside(int x, int y) {
+            return x >= 0 && x < width && y >= 0 && y < height;
+        }
+
+        /**
+         * Высота клетки или -1, если клетка пуста или лежит за пределами карты
+         */
+        public int getCoordinate(int x, int y) {
+            if (!isInside(x, y)) return -1;
+            return map[y * width + x];
+        }
+
+        public void setCoordinate(int x, int y, int value) {
+            if (!isInside(x, y)) return;
+            int cell = y * width + x;
+            if (map[cell] < 0) {
+                removeFree(cell);
+            }
+            map[cell] = value;
+        }
+
+        public void fillMask(int x, int y, Brush brush, int variant) {
+            int[] prevDx = brush.prevDx[variant];
+            int[] prevDy = brush.prevDy[variant];
+            int[] dx = brush.dx[variant];
+            int[] dy = brush.dy[variant];
+            for (int i = 0; i < dx.length; i++) {
+                int prevValue = getCoordinate(x + prevDx[i], y + prevDy[i]);
+                int curValue = getCoordinate(x + dx[i], y + dy[i]);
+
+                if (prevValue < 0 || curValue >= 0) continue;
+
+                setCoordinate(x + dx[i], y + dy[i], prevValue + 1);
+            }
+        }
+
+        public void spawnFiller(int x, int y) {
+            Filler filler = new Filler(this, x, y);
+            filler.init(!isInited);
+            fillers.add(filler);
+        }
+
+        public boolean checkMapIsComplete() {
+            return freeCount == 0;
+        }
+
+        int getFreeCount() {
+            return freeCount;
+        }
+
+        int getFreeCell(int position) {
+            return freeCells[position];
+        }
+
+        private void removeFree(int cell) {
+            int position = freePositions[cell];
+            int last = freeCells[--freeCount];
+            freeCells[position] = last;
+            freePositions[last] = position;
+            freePositions[cell] = -1;
+        }
+
+        public void printMap() {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int value = getCoordinate(x, y);
+                    System.out.print(value >= 0 ? String.format("%2d ", value) : "   ");
+                }
+                System.out.println();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.xet.experiments.builder.algorithm.height_map;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+
+public abstract class GeneratorHeightMap {
+    /**
+     * Заполняет высоты сетки, записывая их напрямую в {@link ColorHeightMaps#heights()}.
+     * Все случайные решения берутся только из переданного генератора, поэтому одинаковый сид
+     * и одинаковый размер дают одинаковую карту.
+     */
+    public abstract void fillHeightMap(ColorHeightMaps grid, SplittableRandom random);
+
+    public void fillHeightMap(ColorHeightMaps grid, long seed) {
+        fillHeightMap(grid, new SplittableRandom(seed));
+    }
+
+    public abstract String getName();
+
+    /**
+     * Стоит ли хранить результат в дисковом кэше: только для медленных генераторов, зависящих от сида
+     */
+    public boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Прерывает долгую генерацию, если поток был прерван (таймаут или остановка сервера)
+     */
+    protected static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Height map generation interrupted");
+        }
+    }
+}
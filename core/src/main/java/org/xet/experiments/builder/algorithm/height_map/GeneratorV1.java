@@ -0,0 +1,26 @@
+package org.xet.experiments.builder.algorithm.height_map;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.SplittableRandom;
+
+public class GeneratorV1 extends GeneratorHeightMap {
+    @Override
+    public void fillHeightMap(ColorHeightMaps grid, SplittableRandom random) {
+        int width = grid.width();
+        int height = grid.height();
+        int[] heightMap = grid.heights();
+
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                heightMap[i++] = Math.abs(x - width / 2) + Math.abs(y - height / 2);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "v1";
+    }
+}
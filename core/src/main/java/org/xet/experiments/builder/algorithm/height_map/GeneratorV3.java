@@ -1,23 +1,26 @@
 package org.xet.experiments.builder.algorithm.height_map;
 
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.SplittableRandom;
+
 public class GeneratorV3 extends GeneratorHeightMap {
     @Override
-    public int[][] getHeightMap(int width, int height) {
-        int[][] heightMap = new int[width][height];
+    public void fillHeightMap(ColorHeightMaps grid, SplittableRandom random) {
+        int width = grid.width();
+        int height = grid.height();
 
         for (int x = 0; x < width; x++) {
             if (x % 2 == 0) {
                 for (int y = 0; y < height; y++) {
-                    heightMap[x][y] = x * height + y;
+                    grid.setHeight(x, y, x * height + y);
                 }
             } else {
                 for (int y = height - 1; y >= 0; y--) {
-                    heightMap[x][y] = (x + 1) * height - y - 1;
+                    grid.setHeight(x, y, (x + 1) * height - y - 1);
                 }
             }
         }
-
-        return heightMap;
     }
 
     @Override
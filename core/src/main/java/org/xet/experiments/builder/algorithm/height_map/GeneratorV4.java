@@ -1,9 +1,14 @@
 package org.xet.experiments.builder.algorithm.height_map;
 
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.SplittableRandom;
+
 public class GeneratorV4 extends GeneratorHeightMap {
     @Override
-    public int[][] getHeightMap(int width, int height) {
-        int[][] heightMap = new int[width][height];
+    public void fillHeightMap(ColorHeightMaps grid, SplittableRandom random) {
+        int width = grid.width();
+        int height = grid.height();
 
         int minRow = 0;
         int maxRow = width - 1;
@@ -14,20 +19,20 @@ public class GeneratorV4 extends GeneratorHeightMap {
 
         while (minRow <= maxRow && minCol <= maxCol) {
             for (int j = minCol; j <= maxCol; j++) {
-                heightMap[minRow][j] = num;
+                grid.setHeight(minRow, j, num);
                 num++;
             }
             minRow++;
 
             for (int i = minRow; i <= maxRow; i++) {
-                heightMap[i][maxCol] = num;
+                grid.setHeight(i, maxCol, num);
                 num++;
             }
             maxCol--;
 
             if (minRow <= maxRow) {
                 for (int j = maxCol; j >= minCol; j--) {
-                    heightMap[maxRow][j] = num;
+                    grid.setHeight(maxRow, j, num);
                     num++;
                 }
                 maxRow--;
@@ -35,14 +40,12 @@ public class GeneratorV4 extends GeneratorHeightMap {
 
             if (minCol <= maxCol) {
                 for (int i = maxRow; i >= minRow; i--) {
-                    heightMap[i][minCol] = num;
+                    grid.setHeight(i, minCol, num);
                     num++;
                 }
                 minCol++;
             }
         }
-
-        return heightMap;
     }
 
     @Override
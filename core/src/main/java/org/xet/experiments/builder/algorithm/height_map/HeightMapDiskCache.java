@@ -0,0 +1,274 @@
+package org.xet.experiments.builder.algorithm.height_map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Дисковый кэш сгенерированных карт высот.
+ * Файл называется по генератору, размеру и сиду; внутри - заголовок с теми же параметрами
+ * и высоты в порядке строк, записанные как zigzag-разности соседних клеток в формате varint.
+ * Соседние высоты почти всегда отличаются на единицы, поэтому клетка занимает около одного байта.
+ * Файл читается через отображение в память, запись идёт во временный файл с последующим переименованием.
+ */
+public class HeightMapDiskCache {
+    private static final Logger LOGGER = LogManager.getLogger(HeightMapDiskCache.class);
+    private static final int MAGIC = 0x46424D48;
+    // Увеличивать при изменении формата или алгоритмов генераторов
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 4;
+    private static final String EXTENSION = ".bin";
+
+    private static volatile Path directory;
+    private static volatile long maxBytes;
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    public static void configure(Path cacheDirectory, long maxSizeBytes) {
+        directory = cacheDirectory;
+        maxBytes = maxSizeBytes;
+    }
+
+    public static boolean isEnabled() {
+        return directory != null && maxBytes > 0;
+    }
+
+    /**
+     * Читает карту в heights; возвращает false, если записи нет или она повреждена
+     */
+    public static boolean load(String generatorName, int width, int height, long seed, int[] heights) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Path file = getFile(generatorName, width, height, seed);
+        if (!Files.isRegularFile(file)) {
+            misses.incrementAndGet();
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!readHeader(buffer, width, height, seed)) {
+                LOGGER.warn("Запись кэша карт высот {} не подходит, будет перезаписана", file.getFileName());
+                misses.incrementAndGet();
+                return false;
+            }
+            decode(buffer, heights);
+            // Время изменения служит меткой последнего использования при вытеснении
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Не удалось прочитать кэш карты высот {}: {}", file.getFileName(), e.getMessage());
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    public static void store(String generatorName, int width, int height, long seed, int[] heights) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path dir = directory;
+        Path file = getFile(generatorName, width, height, seed);
+        try {
+            Files.createDirectories(dir);
+            ByteBuffer buffer = encode(width, height, seed, heights);
+            Path temp = Files.createTempFile(dir, "heightmap", ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                moveReplacing(temp, file);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            evict(dir);
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось сохранить кэш карты высот {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    public static void clear() {
+        Path dir = directory;
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        for (Path file : listEntries(dir)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Не удалось удалить {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static int getEntryCount() {
+        Path dir = directory;
+        return dir == null ? 0 : listEntries(dir).size();
+    }
+
+    public static long getUsedBytes() {
+        Path dir = directory;
+        if (dir == null) {
+            return 0;
+        }
+        long total = 0;
+        for (Path file : listEntries(dir)) {
+            try {
+                total += Files.size(file);
+            } catch (IOException ignored) {
+                // Файл удалён параллельно
+            }
+        }
+        return total;
+    }
+
+    public static long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private static Path getFile(String generatorName, int width, int height, long seed) {
+        return directory.resolve(generatorName + "_" + width + "x" + height + "_" + Long.toHexString(seed) + EXTENSION);
+    }
+
+    private static boolean readHeader(ByteBuffer buffer, int width, int height, long seed) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return false;
+        }
+        int magic = buffer.getInt();
+        int version = buffer.getInt();
+        int storedWidth = buffer.getInt();
+        int storedHeight = buffer.getInt();
+        long storedSeed = buffer.getLong();
+        int payloadSize = buffer.getInt();
+        return magic == MAGIC && version == FORMAT_VERSION
+                && storedWidth == width && storedHeight == height && storedSeed == seed
+                && payloadSize == buffer.remaining();
+    }
+
+    private static ByteBuffer encode(int width, int height, long seed, int[] heights) {
+        // Худший случай varint для int - пять байт
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + heights.length * 5);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(width);
+        buffer.putInt(height);
+        buffer.putLong(seed);
+        int payloadSizePosition = buffer.position();
+        buffer.putInt(0);
+
+        int previous = 0;
+        for (int value : heights) {
+            int delta = value - previous;
+            previous = value;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            buffer.put((byte) zigzag);
+        }
+
+        buffer.putInt(payloadSizePosition, buffer.position() - HEADER_SIZE);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void decode(ByteBuffer buffer, int[] heights) {
+        int previous = 0;
+        for (int i = 0; i < heights.length; i++) {
+            int zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            heights[i] = previous;
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException("Trailing data in height map cache entry");
+        }
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Удаляет давно не использованные записи, пока кэш не уложится в лимит
+     */
+    private static void evict(Path dir) {
+        List<Path> entries = listEntries(dir);
+        List<Entry> sized = new ArrayList<>(entries.size());
+        long total = 0;
+        for (Path file : entries) {
+            try {
+                long size = Files.size(file);
+                sized.add(new Entry(file, size, Files.getLastModifiedTime(file).toMillis()));
+                total += size;
+            } catch (IOException ignored) {
+                // Файл удалён параллельно
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        sized.sort(Comparator.comparingLong(Entry::lastUsed));
+        for (Entry entry : sized) {
+            if (total <= maxBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.file());
+                total -= entry.size();
+            } catch (IOException e) {
+                LOGGER.warn("Не удалось удалить {}: {}", entry.file().getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private static List<Path> listEntries(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).toList();
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось прочитать папку кэша карт высот: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private record Entry(Path file, long size, long lastUsed) {
+    }
+}
@@ -1,5 +1,7 @@
 package org.xet.experiments.builder.algorithm.height_map;
 
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,6 +25,25 @@ public class RegistryGeneratorsHeightMap {
         throw new IllegalArgumentException("Unknown generator name: " + name);
     }
 
+    /**
+     * Заполняет высоты сетки генератором с указанным именем.
+     * Результаты медленных генераторов берутся из дискового кэша, если там уже есть карта
+     * с тем же размером и сидом, иначе генерируются и сохраняются.
+     */
+    public static void fillHeightMap(String name, ColorHeightMaps grid, long seed) {
+        GeneratorHeightMap generator = getGeneratorByName(name);
+        if (!generator.isCacheable()) {
+            generator.fillHeightMap(grid, seed);
+            return;
+        }
+
+        if (HeightMapDiskCache.load(name, grid.width(), grid.height(), seed, grid.heights())) {
+            return;
+        }
+        generator.fillHeightMap(grid, seed);
+        HeightMapDiskCache.store(name, grid.width(), grid.height(), seed, grid.heights());
+    }
+
     public static String[] getAvailableNames() {
         List<String> names = new ArrayList<>();
         for (GeneratorHeightMap gen : generators) {
@@ -0,0 +1,397 @@
+package org.xet.experiments.builder.algorithm.height_map;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class WaveNoiseGenerator extends GeneratorHeightMap {
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final double NOISE_SCALE = 0.15;
+    private static final int MAX_DUPLICATES = 10;
+    private static final int MAX_ITERATIONS_MULTIPLIER = 3;
+    private static final int MAX_WAVE_SIZE = 10;
+    // Порядок соседей при запуске волны совпадает с порядком обхода карты по столбцам
+    private static final int[] WAVE_DX = {-1, 0, 0, 1};
+    private static final int[] WAVE_DY = {0, -1, 1, 0};
+
+    @Override
+    public void fillHeightMap(ColorHeightMaps grid, SplittableRandom random) {
+        new Wave(grid, random, new PerlinNoise(random.split())).run();
+    }
+
+    @Override
+    public String getName() {
+        return "wave_noise";
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Состояние одной генерации. Фронт (незаполненные клетки рядом с заполненными) поддерживается
+     * инкрементально при каждой заливке, поэтому новая волна не сканирует всю карту.
+     */
+    private static final class Wave {
+        private final int width;
+        private final int height;
+        private final int totalCells;
+        private final int[] heightMap;
+        private final SplittableRandom rand;
+        // Значение шума для каждой клетки, считается один раз
+        private final double[] noise;
+        // Количество клеток на каждой высоте
+        private final int[] heightStats;
+        // Число заполненных соседей у каждой клетки
+        private final byte[] filledNeighbours;
+        // Заполненные клетки, ожидающие распространения, по убыванию шума
+        private final CellHeap queue;
+        // Незаполненные клетки фронта по убыванию шума
+        private final CellHeap frontier;
+        private final int[] dirs = {0, 1, 2, 3};
+        private final int[] waveCells = new int[MAX_WAVE_SIZE];
+        private final int[] waveCandidates = new int[MAX_WAVE_SIZE];
+        // Число пар (заполненная клетка, пустой сосед) - размер списка кандидатов новой волны
+        private int frontierEdges = 0;
+        private int filledCells = 0;
+
+        Wave(ColorHeightMaps grid, SplittableRandom rand, PerlinNoise perlin) {
+            this.width = grid.width();
+            this.height = grid.height();
+            this.totalCells = grid.size();
+            this.heightMap = grid.heights();
+            this.rand = rand;
+            Arrays.fill(heightMap, -1);
+
+            this.noise = new double[totalCells];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    noise[y * width + x] = perlin.perlin(x * NOISE_SCALE, y * NOISE_SCALE);
+                }
+            }
+            this.heightStats = new int[totalCells + 1];
+            this.filledNeighbours = new byte[totalCells];
+            this.queue = new CellHeap(noise);
+            this.frontier = new CellHeap(noise);
+        }
+
+        void run() {
+            int start = (height / 2) * width + width / 2;
+            fill(start, 0);
+            queue.add(start);
+
+            int maxIterations = totalCells * MAX_ITERATIONS_MULTIPLIER;
+            int iterations = 0;
+
+            while (filledCells < totalCells && iterations++ < maxIterations) {
+                if ((iterations & 1023) == 0) {
+                    checkInterrupted();
+                }
+                if (queue.isEmpty()) {
+                    spawnNewWave();
+                }
+                if (queue.isEmpty()) continue;
+
+                int current = queue.poll();
+                int cx = current % width;
+                int cy = current / width;
+                int newHeight = heightMap[current] + 1;
+
+                // Случайный порядок обработки соседей
+                shuffleDirections();
+
+                for (int dir : dirs) {
+                    int nx = cx + DX[dir];
+                    int ny = cy + DY[dir];
+                    if (!isValid(nx, ny)) continue;
+
+                    int next = ny * width + nx;
+                    if (heightMap[next] != -1) continue;
+
+                    // Вероятностный контроль дубликатов
+                    double probability = Math.max(0.3, 1.0 - heightStats[newHeight] / (double) MAX_DUPLICATES);
+                    if (rand.nextDouble() > probability) continue;
+
+                    fill(next, newHeight);
+                    queue.add(next);
+                }
+            }
+
+            // Аварийное заполнение оставшихся клеток
+            if (filledCells < totalCells) {
+                completeUnfilled();
+            }
+        }
+
+        /**
+         * Запускает новую волну из самых "интересных" по шуму клеток фронта.
+         * Каждая клетка фронта даёт по кандидату на каждого заполненного соседа,
+         * в волну берётся пятая часть кандидатов, но не больше {@link #MAX_WAVE_SIZE}.
+         */
+        private void spawnNewWave() {
+            if (frontierEdges == 0) return;
+
+            int toAdd = Math.min(MAX_WAVE_SIZE, Math.max(1, frontierEdges / 5));
+            int count = 0;
+            while (toAdd > 0 && !frontier.isEmpty()) {
+                int cell = frontier.poll();
+                int candidates = Math.min(toAdd, filledNeighbours[cell]);
+                waveCells[count] = cell;
+                waveCandidates[count] = candidates;
+                count++;
+                toAdd -= candidates;
+            }
+
+            for (int i = 0; i < count; i++) {
+                tryWaveCell(waveCells[i], waveCandidates[i]);
+            }
+
+            // Клетки, не прошедшие ограничение по высоте, остаются во фронте
+            for (int i = 0; i < count; i++) {
+                int cell = waveCells[i];
+                if (heightMap[cell] == -1 && filledNeighbours[cell] > 0 && !frontier.contains(cell)) {
+                    frontier.add(cell);
+                }
+            }
+        }
+
+        private void tryWaveCell(int cell, int candidates) {
+            int x = cell % width;
+            int y = cell / width;
+            // Соседи в порядке обхода карты: слева, сверху, снизу, справа
+            for (int d = 0; d < 4 && candidates > 0; d++) {
+                int nx = x + WAVE_DX[d];
+                int ny = y + WAVE_DY[d];
+                if (!isValid(nx, ny)) continue;
+
+                int neighbour = heightMap[ny * width + nx];
+                if (neighbour == -1) continue;
+                candidates--;
+
+                int heightValue = neighbour + 1;
+                if (heightMap[cell] == -1 && heightStats[heightValue] < MAX_DUPLICATES * 2) {
+                    fill(cell, heightValue);
+                    queue.add(cell);
+                }
+            }
+        }
+
+        private void fill(int cell, int value) {
+            heightMap[cell] = value;
+            heightStats[value]++;
+            filledCells++;
+
+            frontier.remove(cell);
+            frontierEdges -= filledNeighbours[cell];
+
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (!isValid(nx, ny)) continue;
+
+                int next = ny * width + nx;
+                if (heightMap[next] != -1) continue;
+
+                frontierEdges++;
+                if (filledNeighbours[next]++ == 0) {
+                    frontier.add(next);
+                }
+            }
+        }
+
+        private void shuffleDirections() {
+            for (int i = dirs.length - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int temp = dirs[i];
+                dirs[i] = dirs[j];
+                dirs[j] = temp;
+            }
+        }
+
+        private void completeUnfilled() {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (heightMap[y * width + x] != -1) continue;
+
+                    int minHeight = Integer.MAX_VALUE;
+                    for (int d = 0; d < 4; d++) {
+                        int nx = x + DX[d];
+                        int ny = y + DY[d];
+
+                        if (isValid(nx, ny)) {
+                            int neighbour = heightMap[ny * width + nx];
+                            if (neighbour != -1 && neighbour < minHeight) {
+                                minHeight = neighbour;
+                            }
+                        }
+                    }
+
+                    if (minHeight != Integer.MAX_VALUE) {
+                        heightMap[y * width + x] = minHeight + 1;
+                    } else {
+                        heightMap[y * width + x] = 0; // На крайний случай
+                    }
+                }
+            }
+        }
+
+        private boolean isValid(int x, int y) {
+            return x >= 0 && y >= 0 && x < width && y < height;
+        }
+    }
+
+    /**
+     * Индексированная двоичная куча клеток с максимумом шума в вершине.
+     * Позиция каждой клетки хранится отдельно, поэтому удаление произвольной клетки - O(log n).
+     */
+    static final class CellHeap {
+        private final double[] keys;
+        private final int[] heap;
+        private final int[] positions;
+        private int size = 0;
+
+        CellHeap(double[] keys) {
+            this.keys = keys;
+            this.heap = new int[keys.length];
+            this.positions = new int[keys.length];
+            Arrays.fill(positions, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int cell) {
+            return positions[cell] != -1;
+        }
+
+        void add(int cell) {
+            heap[size] = cell;
+            positions[cell] = size;
+            siftUp(size++);
+        }
+
+        int poll() {
+            int top = heap[0];
+            removeAt(0);
+            return top;
+        }
+
+        void remove(int cell) {
+            int position = positions[cell];
+            if (position != -1) {
+                removeAt(position);
+            }
+        }
+
+        private void removeAt(int position) {
+            int removed = heap[position];
+            positions[removed] = -1;
+            size--;
+            if (position == size) {
+                return;
+            }
+            int last = heap[size];
+            heap[position] = last;
+            positions[last] = position;
+            siftDown(position);
+            siftUp(positions[last]);
+        }
+
+        private void siftUp(int position) {
+            int cell = heap[position];
+            double key = keys[cell];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                int parentCell = heap[parent];
+                if (keys[parentCell] >= key) break;
+                heap[position] = parentCell;
+                positions[parentCell] = position;
+                position = parent;
+            }
+            heap[position] = cell;
+            positions[cell] = position;
+        }
+
+        private void siftDown(int position) {
+            int cell = heap[position];
+            double key = keys[cell];
+            int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                int right = child + 1;
+                if (right < size && keys[heap[right]] > keys[heap[child]]) {
+                    child = right;
+                }
+                int childCell = heap[child];
+                if (key >= keys[childCell]) break;
+                heap[position] = childCell;
+                positions[childCell] = position;
+                position = child;
+            }
+            heap[position] = cell;
+            positions[cell] = position;
+        }
+    }
+
+    // Упрощенная реализация шума Перлина
+    static class PerlinNoise {
+        private final int[] permutations = new int[512];
+        
+        public PerlinNoise(SplittableRandom rand) {
+            int[] p = new int[256];
+            for (int i = 0; i < 256; i++) p[i] = i;
+            for (int i = 0; i < 256; i++) {
+                int j = rand.nextInt(256 - i) + i;
+                int temp = p[i];
+                p[i] = p[j];
+                p[j] = temp;
+            }
+            System.arraycopy(p, 0, permutations, 0, 256);
+            System.arraycopy(p, 0, permutations, 256, 256);
+        }
+        
+        public double perlin(double x, double y) {
+            // Быстрая реализация 2D шума
+            int X = (int)Math.floor(x) & 255;
+            int Y = (int)Math.floor(y) & 255;
+            
+            x -= Math.floor(x);
+            y -= Math.floor(y);
+            
+            double u = fade(x);
+            double v = fade(y);
+            
+            int a = permutations[X] + Y;
+            int aa = permutations[a];
+            int ab = permutations[a + 1];
+            int b = permutations[X + 1] + Y;
+            int ba = permutations[b];
+            int bb = permutations[b + 1];
+            
+            double lerp1 = lerp(u, grad(aa, x, y), grad(ba, x-1, y));
+            double lerp2 = lerp(u, grad(ab, x, y-1), grad(bb, x-1, y-1));
+            return lerp(v, lerp1, lerp2);
+        }
+        
+        private double fade(double t) { 
+            return t * t * t * (t * (t * 6 - 15) + 10);
+        }
+        
+        private double lerp(double t, double a, double b) { 
+            return a + t * (b - a); 
+        }
+        
+        private double grad(int hash, double x, double y) {
+            int h = hash & 15;
+            double u = h < 8 ? x : y;
+            double v = h < 4 ? y : (h == 12 || h == 14) ? x : 0;
+            return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+        }
+    }
+}
\ No newline at end of file
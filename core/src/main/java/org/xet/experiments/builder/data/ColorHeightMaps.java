@@ -0,0 +1,77 @@
+package org.xet.experiments.builder.data;
+
+import org.xet.experiments.builder.algorithm.color.ImageColorEnum;
+
+/**
+ * Сетка изображения: индекс цвета палитры и высота для каждой клетки.
+ * Хранится в плоских примитивных массивах по строкам (индекс = y * width + x),
+ * поэтому ColorMap и генераторы высот пишут в неё напрямую, без промежуточных копий.
+ */
+public final class ColorHeightMaps {
+    private static final ImageColorEnum[] COLORS = ImageColorEnum.values();
+
+    private final int width;
+    private final int height;
+    private final byte[] colors;
+    private final int[] heights;
+
+    public ColorHeightMaps(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid grid size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.colors = new byte[width * height];
+        this.heights = new int[width * height];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int size() {
+        return colors.length;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public ImageColorEnum getColor(int x, int y) {
+        return COLORS[colors[index(x, y)]];
+    }
+
+    public void setColor(int x, int y, ImageColorEnum color) {
+        colors[index(x, y)] = (byte) color.ordinal();
+    }
+
+    public int getHeight(int x, int y) {
+        return heights[index(x, y)];
+    }
+
+    public void setHeight(int x, int y, int value) {
+        heights[index(x, y)] = value;
+    }
+
+    /**
+     * Индексы ImageColorEnum по клеткам, без копирования
+     */
+    public byte[] colors() {
+        return colors;
+    }
+
+    /**
+     * Высоты по клеткам, без копирования
+     */
+    public int[] heights() {
+        return heights;
+    }
+}
@@ -0,0 +1,99 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.algorithm.AnimationDecoder;
+import org.xet.experiments.builder.algorithm.color.ColorMap;
+import org.xet.experiments.builder.algorithm.height_map.RegistryGeneratorsHeightMap;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Анимация, готовая к размещению: квантованные цвета всех кадров и общая для них сетка высот.
+ * Высоты зависят только от размера и сида, поэтому генерируются один раз, а кадры отличаются лишь цветами:
+ * первый кадр строится целиком через {@link PlacementCursor}, каждый следующий - через {@link FrameDeltaCursor},
+ * который ставит только изменившиеся блоки. Подряд идущие одинаковые кадры склеиваются в один с общей задержкой.
+ */
+public final class AnimationPlan {
+    private final ColorHeightMaps grid;
+    private final List<byte[]> frames;
+    private final int[] delaysMs;
+
+    private AnimationPlan(ColorHeightMaps grid, List<byte[]> frames, int[] delaysMs) {
+        this.grid = grid;
+        this.frames = frames;
+        this.delaysMs = delaysMs;
+    }
+
+    /**
+     * Декодирует GIF или папку с кадрами через {@link AnimationDecoder} и квантует кадры по мере чтения
+     */
+    public static AnimationPlan generate(File source, GenerationParams params, int maxFrames, int defaultDelayMs) throws IOException {
+        int width = params.width();
+        int height = params.height();
+        List<byte[]> frames = new ArrayList<>();
+        List<Integer> delays = new ArrayList<>();
+
+        AnimationDecoder.decode(source, maxFrames, defaultDelayMs, (image, delayMs) -> {
+            byte[] colors = new byte[width * height];
+            new ColorMap(image)
+                    .setMaterial(params.material())
+                    .setDithering(params.dithering())
+                    .setParallelThreshold(params.parallelThreshold())
+                    .fillColors(colors, width, height);
+            int last = frames.size() - 1;
+            if (last >= 0 && Arrays.equals(frames.get(last), colors)) {
+                delays.set(last, delays.get(last) + delayMs);
+                return;
+            }
+            frames.add(colors);
+            delays.add(delayMs);
+        });
+        if (frames.isEmpty()) {
+            throw new IOException("No frames found");
+        }
+
+        ColorHeightMaps grid = new ColorHeightMaps(width, height);
+        System.arraycopy(frames.get(0), 0, grid.colors(), 0, grid.size());
+        RegistryGeneratorsHeightMap.fillHeightMap(params.generatorName(), grid, params.seed());
+
+        int[] delaysMs = new int[delays.size()];
+        for (int i = 0; i < delaysMs.length; i++) {
+            delaysMs[i] = delays.get(i);
+        }
+        return new AnimationPlan(grid, frames, delaysMs);
+    }
+
+    /**
+     * Сетка с высотами и цветами кадра, который сейчас стоит в мире
+     */
+    public ColorHeightMaps getGrid() {
+        return grid;
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    /**
+     * Цвета кадра; массив общий, изменять его нельзя
+     */
+    public byte[] getFrame(int frame) {
+        return frames.get(frame);
+    }
+
+    public int getDelayMs(int frame) {
+        return delaysMs[frame];
+    }
+
+    /**
+     * Сколько блоков меняет переход к кадру от предыдущего; для первого кадра - переход от последнего при повторе
+     */
+    public int getChangedBlocks(int frame) {
+        int previous = (frame + frames.size() - 1) % frames.size();
+        return FrameDeltaCursor.countChanges(frames.get(previous), frames.get(frame));
+    }
+}
@@ -0,0 +1,29 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.algorithm.color.ImageColorEnum;
+
+/**
+ * Коды блоков плана размещения. Ядро не знает о блоках Minecraft:
+ * коды от 0 до числа цветов - это цветной блок с порядковым номером {@link ImageColorEnum},
+ * дальше идут факелы. Мод переводит код в состояние блока при размещении.
+ */
+public final class BlockCodes {
+    public static final int COLOR_COUNT = ImageColorEnum.values().length;
+    public static final int TORCH = COLOR_COUNT;
+    public static final int WALL_TORCH_EAST = COLOR_COUNT + 1;
+    public static final int WALL_TORCH_WEST = COLOR_COUNT + 2;
+    public static final int WALL_TORCH_SOUTH = COLOR_COUNT + 3;
+    public static final int WALL_TORCH_NORTH = COLOR_COUNT + 4;
+    public static final int COUNT = COLOR_COUNT + 5;
+
+    private BlockCodes() {
+    }
+
+    public static int color(ImageColorEnum color) {
+        return color.ordinal();
+    }
+
+    public static boolean isColor(int code) {
+        return code >= 0 && code < COLOR_COUNT;
+    }
+}
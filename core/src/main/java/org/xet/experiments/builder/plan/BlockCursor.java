@@ -0,0 +1,32 @@
+package org.xet.experiments.builder.plan;
+
+/**
+ * Последовательность блоков для размещения, выдаваемая по одному без аллокаций.
+ * После успешного {@link #advance()} координаты и код описывают текущий блок.
+ */
+public interface BlockCursor {
+    /**
+     * Переходит к следующему блоку; возвращает false, если блоки закончились
+     */
+    boolean advance();
+
+    boolean hasRemaining();
+
+    int getX();
+
+    int getY();
+
+    int getZ();
+
+    /**
+     * Код текущего блока из {@link BlockCodes}
+     */
+    int getCode();
+
+    /**
+     * Сколько блоков уже выдано
+     */
+    int getIndex();
+
+    int getTotal();
+}
@@ -0,0 +1,112 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+/**
+ * Переход анимации к следующему кадру: только блоки клеток, цвет которых отличается от текущего в сетке.
+ * Высоты у всех кадров общие, поэтому факелы остаются на месте и меняется лишь верхний блок клетки
+ * на уровне высота + 1 - ровно там, куда его поставил {@link PlacementCursor}.
+ * <p>
+ * Курсор записывает новый цвет в сетку по мере выдачи блоков, так что сетка всегда совпадает с миром
+ * и следующий переход можно считать от неё, даже если часть кадров была пропущена.
+ */
+public final class FrameDeltaCursor implements BlockCursor {
+    private final int width;
+    private final int[] heights;
+    private final byte[] colors;
+    private final byte[] frame;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    private final int[] changedCells;
+
+    private int index = 0;
+    private int x;
+    private int y;
+    private int z;
+    private int code;
+
+    public FrameDeltaCursor(ColorHeightMaps grid, byte[] frame, int originX, int originY, int originZ) {
+        if (frame.length != grid.size()) {
+            throw new IllegalArgumentException("Frame size " + frame.length + " does not match grid size " + grid.size());
+        }
+        this.width = grid.width();
+        this.heights = grid.heights();
+        this.colors = grid.colors();
+        this.frame = frame;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+
+        int count = countChanges(colors, frame);
+        changedCells = new int[count];
+        int next = 0;
+        for (int cell = 0; next < count; cell++) {
+            if (colors[cell] != frame[cell]) {
+                changedCells[next++] = cell;
+            }
+        }
+    }
+
+    /**
+     * Число клеток, цвет которых отличается в двух кадрах
+     */
+    public static int countChanges(byte[] from, byte[] to) {
+        int count = 0;
+        for (int cell = 0; cell < from.length; cell++) {
+            if (from[cell] != to[cell]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean advance() {
+        if (index >= changedCells.length) {
+            return false;
+        }
+        int cell = changedCells[index++];
+        colors[cell] = frame[cell];
+        x = originX + cell % width;
+        y = originY + heights[cell] + 1;
+        z = originZ + cell / width;
+        code = frame[cell];
+        return true;
+    }
+
+    @Override
+    public boolean hasRemaining() {
+        return index < changedCells.length;
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getTotal() {
+        return changedCells.length;
+    }
+}
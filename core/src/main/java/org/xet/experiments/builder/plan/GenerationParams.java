@@ -0,0 +1,11 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.algorithm.color.DitheringMode;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
+
+/**
+ * Параметры генерации: размер сетки, генератор высот, сид, материал палитры, сглаживание и порог параллельного квантования
+ */
+public record GenerationParams(int width, int height, String generatorName, long seed, PaletteMaterial material,
+                               DitheringMode dithering, int parallelThreshold) {
+}
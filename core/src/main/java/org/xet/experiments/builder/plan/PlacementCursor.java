@@ -0,0 +1,233 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+/**
+ * Ленивый обход плана размещения прямо по сетке цветов и высот, слой за слоем снизу вверх.
+ * Слой 0 - факелы под клетками нулевой высоты, на которые падают блоки; слой h + 1 - блоки клеток
+ * высоты h и настенные факелы у соседей, которые на единицу выше, чтобы блок над ними не провалился.
+ * <p>
+ * Клетки один раз раскладываются по высотам сортировкой подсчётом (порядок обхода сетки внутри высоты
+ * сохраняется), дальше курсор выдаёт блоки по одному без аллокаций. Памяти нужно O(размер сетки)
+ * независимо от числа блоков. Сетку нельзя менять, пока курсор используется.
+ */
+public final class PlacementCursor implements BlockCursor {
+    private final ColorHeightMaps grid;
+    private final int width;
+    private final int height;
+    private final int[] heights;
+    private final byte[] colors;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    // Клетки, упорядоченные по высоте; клетки высоты h занимают [heightStarts[h], heightStarts[h + 1])
+    private final int[] cellsByHeight;
+    private final int[] heightStarts;
+    private final int levelCount;
+    private final int total;
+
+    private int level = 0;
+    private int cellPosition = 0;
+    // Шаг внутри клетки: 0 - сам блок, 1-4 - настенные факелы с востока, запада, юга и севера
+    private int step = 0;
+    private int index = 0;
+
+    private int x;
+    private int y;
+    private int z;
+    private int code;
+
+    public PlacementCursor(ColorHeightMaps grid, int originX, int originY, int originZ) {
+        this.grid = grid;
+        this.width = grid.width();
+        this.height = grid.height();
+        this.heights = grid.heights();
+        this.colors = grid.colors();
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+
+        int maxHeight = 0;
+        for (int value : heights) {
+            maxHeight = Math.max(maxHeight, value);
+        }
+
+        heightStarts = new int[maxHeight + 2];
+        int blocks = 0;
+        for (int cell = 0; cell < heights.length; cell++) {
+            int cellHeight = heights[cell];
+            heightStarts[cellHeight + 1]++;
+            blocks += 1 + countWallTorches(cell, cellHeight);
+            if (cellHeight == 0) {
+                blocks++;
+            }
+        }
+        for (int h = 1; h < heightStarts.length; h++) {
+            heightStarts[h] += heightStarts[h - 1];
+        }
+
+        cellsByHeight = new int[heights.length];
+        int[] next = heightStarts.clone();
+        for (int cell = 0; cell < heights.length; cell++) {
+            cellsByHeight[next[heights[cell]]++] = cell;
+        }
+
+        this.levelCount = maxHeight + 2;
+        this.total = blocks;
+    }
+
+    @Override
+    public boolean advance() {
+        while (level < levelCount) {
+            int cellHeight = Math.max(0, level - 1);
+            int end = heightStarts[cellHeight + 1];
+            while (cellPosition < end) {
+                int cell = cellsByHeight[cellPosition];
+                if (level == 0) {
+                    cellPosition++;
+                    set(cell % width, cell / width, 0, BlockCodes.TORCH);
+                    return true;
+                }
+                while (step < 5) {
+                    if (tryStep(cell, cellHeight, step++)) {
+                        return true;
+                    }
+                }
+                step = 0;
+                cellPosition++;
+            }
+            level++;
+            cellPosition = heightStarts[Math.max(0, level - 1)];
+        }
+        return false;
+    }
+
+    /**
+     * Пропускает блоки, например уже поставленные до перезапуска; возвращает число пропущенных
+     */
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && advance()) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean hasRemaining() {
+        return index < total;
+    }
+
+    private boolean tryStep(int cell, int cellHeight, int step) {
+        int i = cell % width;
+        int j = cell / width;
+        int level = cellHeight + 1;
+        switch (step) {
+            case 0 -> {
+                set(i, j, level, colors[cell]);
+                return true;
+            }
+            case 1 -> {
+                if (i + 1 < width && heights[cell + 1] - 1 == cellHeight) {
+                    set(i + 1, j, level, BlockCodes.WALL_TORCH_EAST);
+                    return true;
+                }
+            }
+            case 2 -> {
+                if (i - 1 >= 0 && heights[cell - 1] - 1 == cellHeight) {
+                    set(i - 1, j, level, BlockCodes.WALL_TORCH_WEST);
+                    return true;
+                }
+            }
+            case 3 -> {
+                if (j + 1 < height && heights[cell + width] - 1 == cellHeight) {
+                    set(i, j + 1, level, BlockCodes.WALL_TORCH_SOUTH);
+                    return true;
+                }
+            }
+            default -> {
+                if (j - 1 >= 0 && heights[cell - width] - 1 == cellHeight) {
+                    set(i, j - 1, level, BlockCodes.WALL_TORCH_NORTH);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void set(int i, int j, int level, int code) {
+        this.x = originX + i;
+        this.y = originY + level;
+        this.z = originZ + j;
+        this.code = code;
+        this.index++;
+    }
+
+    private int countWallTorches(int cell, int cellHeight) {
+        int i = cell % width;
+        int j = cell / width;
+        int count = 0;
+        if (i + 1 < width && heights[cell + 1] - 1 == cellHeight) count++;
+        if (i - 1 >= 0 && heights[cell - 1] - 1 == cellHeight) count++;
+        if (j + 1 < height && heights[cell + width] - 1 == cellHeight) count++;
+        if (j - 1 >= 0 && heights[cell - width] - 1 == cellHeight) count++;
+        return count;
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Слой текущего блока: его высота относительно originY
+     */
+    public int getLevel() {
+        return y - originY;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getTotal() {
+        return total;
+    }
+
+    public ColorHeightMaps getGrid() {
+        return grid;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getOriginZ() {
+        return originZ;
+    }
+}
@@ -0,0 +1,58 @@
+package org.xet.experiments.builder.plan;
+
+/**
+ * План размещения постройки в примитивных массивах, упорядоченный по слоям снизу вверх.
+ * Блоки слоя {@code level} (высота {@code originY + level}) занимают индексы
+ * [{@link #getLevelStart(int)}, {@link #getLevelEnd(int)}), поэтому обход плана - линейный проход без аллокаций.
+ */
+public final class PlacementPlan {
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] zs;
+    private final byte[] codes;
+    // levelStarts[level] - первый индекс слоя, последний элемент равен числу блоков
+    private final int[] levelStarts;
+
+    PlacementPlan(int[] xs, int[] ys, int[] zs, byte[] codes, int[] levelStarts) {
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.codes = codes;
+        this.levelStarts = levelStarts;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    public int getZ(int index) {
+        return zs[index];
+    }
+
+    /**
+     * Код блока из {@link BlockCodes}
+     */
+    public int getCode(int index) {
+        return codes[index];
+    }
+
+    public int getLevelCount() {
+        return levelStarts.length - 1;
+    }
+
+    public int getLevelStart(int level) {
+        return levelStarts[level];
+    }
+
+    public int getLevelEnd(int level) {
+        return levelStarts[level + 1];
+    }
+}
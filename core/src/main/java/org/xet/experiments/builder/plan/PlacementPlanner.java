@@ -0,0 +1,38 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+/**
+ * Строит полный план размещения из готовой сетки цветов и высот.
+ * Порядок блоков задаёт {@link PlacementCursor}; для постепенного размещения в мире
+ * используется сам курсор, а готовый план нужен там, где блоки читаются многократно (CLI, бенчмарки).
+ */
+public final class PlacementPlanner {
+    private PlacementPlanner() {
+    }
+
+    public static PlacementPlan plan(ColorHeightMaps grid, int originX, int originY, int originZ) {
+        PlacementCursor cursor = new PlacementCursor(grid, originX, originY, originZ);
+        int total = cursor.getTotal();
+        int[] xs = new int[total];
+        int[] ys = new int[total];
+        int[] zs = new int[total];
+        byte[] codes = new byte[total];
+        int[] levelStarts = new int[cursor.getLevelCount() + 1];
+
+        int k = 0;
+        while (cursor.advance()) {
+            xs[k] = cursor.getX();
+            ys[k] = cursor.getY();
+            zs[k] = cursor.getZ();
+            codes[k] = (byte) cursor.getCode();
+            levelStarts[cursor.getLevel() + 1]++;
+            k++;
+        }
+        for (int level = 1; level < levelStarts.length; level++) {
+            levelStarts[level] += levelStarts[level - 1];
+        }
+
+        return new PlacementPlan(xs, ys, zs, codes, levelStarts);
+    }
+}
@@ -0,0 +1,31 @@
+package org.xet.experiments.builder.plan;
+
+import org.xet.experiments.builder.algorithm.color.ColorMap;
+import org.xet.experiments.builder.algorithm.height_map.RegistryGeneratorsHeightMap;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Точка входа ядра: изображение и параметры - сетка цветов и высот - план размещения.
+ * Не зависит от Minecraft, поэтому используется и модом, и консольным запуском.
+ */
+public final class PlanGenerator {
+    private PlanGenerator() {
+    }
+
+    public static ColorHeightMaps generateGrid(BufferedImage image, GenerationParams params) {
+        ColorHeightMaps grid = new ColorHeightMaps(params.width(), params.height());
+        new ColorMap(image)
+                .setMaterial(params.material())
+                .setDithering(params.dithering())
+                .setParallelThreshold(params.parallelThreshold())
+                .fillColorMap(grid);
+        RegistryGeneratorsHeightMap.fillHeightMap(params.generatorName(), grid, params.seed());
+        return grid;
+    }
+
+    public static PlacementPlan generatePlan(BufferedImage image, GenerationParams params, int originX, int originY, int originZ) {
+        return PlacementPlanner.plan(generateGrid(image, params), originX, originY, originZ);
+    }
+}
@@ -0,0 +1,172 @@
+package org.xet.experiments.cli;
+
+import org.xet.experiments.builder.algorithm.ImageDecoder;
+import org.xet.experiments.builder.algorithm.color.ColorQuantizer;
+import org.xet.experiments.builder.algorithm.color.DitheringMode;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
+import org.xet.experiments.builder.algorithm.height_map.HeightMapDiskCache;
+import org.xet.experiments.builder.algorithm.height_map.RegistryGeneratorsHeightMap;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+import org.xet.experiments.builder.plan.AnimationPlan;
+import org.xet.experiments.builder.plan.GenerationParams;
+import org.xet.experiments.builder.plan.PlacementCursor;
+import org.xet.experiments.builder.plan.PlacementPlan;
+import org.xet.experiments.builder.plan.PlacementPlanner;
+import org.xet.experiments.builder.plan.PlanGenerator;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Консольный запуск ядра без Minecraft: генерирует план для изображения и печатает время каждого этапа.
+ * Нужен для пакетной генерации и профилирования на обычных машинах.
+ */
+public final class PlanCli {
+    private static final String USAGE = """
+            Usage: plan <image> <width> <height> <generator> [options]
+              --seed <n>        seed for random generators (random by default)
+              --repeat <n>      run the whole pipeline n times (default 1)
+              --material <name> palette material: concrete_powder (default), concrete, wool, terracotta
+              --dither <mode>   dithering: none (default), floyd_steinberg, bayer
+              --threshold <n>   pixel count from which quantization is parallel
+              --cache <dir>     use a height map disk cache in this directory
+              --out <file>      write the last plan as "x,y,z,code" lines
+              --frames <n>      treat the input as an animation (GIF or a folder of numbered frames),
+                                decode at most n frames and print the blocks changed per frame
+            Generators: %s
+            """;
+
+    private static final int DEFAULT_FRAME_DELAY_MS = 100;
+
+    private PlanCli() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.printf(USAGE, String.join(", ", RegistryGeneratorsHeightMap.getAvailableNames()));
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int run(String[] args) throws IOException {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Not enough arguments");
+        }
+        File imageFile = new File(args[0]);
+        int width = parseInt(args[1], "width");
+        int height = parseInt(args[2], "height");
+        String generatorName = args[3];
+        if (!Arrays.asList(RegistryGeneratorsHeightMap.getAvailableNames()).contains(generatorName)) {
+            throw new IllegalArgumentException("Unknown generator: " + generatorName);
+        }
+
+        long seed = ThreadLocalRandom.current().nextLong();
+        int repeat = 1;
+        PaletteMaterial material = PaletteMaterial.CONCRETE_POWDER;
+        DitheringMode dithering = DitheringMode.NONE;
+        int threshold = ColorQuantizer.DEFAULT_PARALLEL_THRESHOLD;
+        Path out = null;
+        int maxFrames = 0;
+        for (int i = 4; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--repeat" -> repeat = Math.max(1, parseInt(value, "repeat"));
+                case "--material" -> material = PaletteMaterial.fromName(value);
+                case "--dither" -> dithering = DitheringMode.fromName(value);
+                case "--threshold" -> threshold = parseInt(value, "threshold");
+                case "--cache" -> HeightMapDiskCache.configure(Path.of(value), Long.MAX_VALUE);
+                case "--out" -> out = Path.of(value);
+                case "--frames" -> maxFrames = parseInt(value, "frames");
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        GenerationParams params = new GenerationParams(width, height, generatorName, seed, material, dithering, threshold);
+        System.out.printf("image=%s size=%dx%d generator=%s seed=%d material=%s dithering=%s%n",
+                imageFile, width, height, generatorName, seed, material.getName(), dithering.getName());
+        if (maxFrames > 0) {
+            return runAnimation(imageFile, params, maxFrames);
+        }
+
+        PlacementPlan plan = null;
+        for (int run = 1; run <= repeat; run++) {
+            long start = System.nanoTime();
+            BufferedImage image = ImageDecoder.decode(imageFile, width, height);
+            long decoded = System.nanoTime();
+            ColorHeightMaps grid = PlanGenerator.generateGrid(image, params);
+            long generated = System.nanoTime();
+            plan = PlacementPlanner.plan(grid, 0, 0, 0);
+            long planned = System.nanoTime();
+
+            System.out.printf("run %d: decode %.1f ms, grid %.1f ms, plan %.1f ms, total %.1f ms, %d blocks%n",
+                    run, millis(decoded - start), millis(generated - decoded), millis(planned - generated),
+                    millis(planned - start), plan.size());
+        }
+
+        if (out != null) {
+            writePlan(plan, out);
+            System.out.println("plan written to " + out);
+        }
+        return 0;
+    }
+
+    private static int runAnimation(File source, GenerationParams params, int maxFrames) throws IOException {
+        long start = System.nanoTime();
+        AnimationPlan animation = AnimationPlan.generate(source, params, maxFrames, DEFAULT_FRAME_DELAY_MS);
+        long generated = System.nanoTime();
+        int fullBlocks = new PlacementCursor(animation.getGrid(), 0, 0, 0).getTotal();
+
+        long changedTotal = 0;
+        for (int frame = 1; frame < animation.getFrameCount(); frame++) {
+            int changed = animation.getChangedBlocks(frame);
+            changedTotal += changed;
+            System.out.printf("frame %d: %d ms, %d blocks changed%n", frame, animation.getDelayMs(frame), changed);
+        }
+        int updates = animation.getFrameCount() - 1;
+        System.out.printf("%d frames in %.1f ms, first frame %d blocks, %.1f blocks per frame update "
+                        + "(%.2f%% of a full rebuild), loop back %d blocks%n",
+                animation.getFrameCount(), millis(generated - start), fullBlocks,
+                updates == 0 ? 0.0 : (double) changedTotal / updates,
+                updates == 0 ? 0.0 : changedTotal * 100.0 / updates / fullBlocks,
+                animation.getChangedBlocks(0));
+        return 0;
+    }
+
+    private static void writePlan(PlacementPlan plan, Path out) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(out)) {
+            for (int i = 0; i < plan.size(); i++) {
+                writer.write(plan.getX(i) + "," + plan.getY(i) + "," + plan.getZ(i) + "," + plan.getCode(i));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
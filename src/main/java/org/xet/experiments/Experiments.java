@@ -2,11 +2,37 @@ package org.xet.experiments;
 
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import org.xet.experiments.builder.algorithm.ImageCache;
+import org.xet.experiments.builder.algorithm.ImageGetter;
+import org.xet.experiments.builder.algorithm.ImageIndex;
+import org.xet.experiments.builder.algorithm.height_map.HeightMapDiskCache;
+import org.xet.experiments.builder.generation.GenerationService;
+import org.xet.experiments.builder.placement.PlacementScheduler;
 import org.xet.experiments.command.ImageCommand;
+import org.xet.experiments.config.ExperimentsConfig;
 
 public class Experiments implements ModInitializer {
     @Override
     public void onInitialize() {
+        ExperimentsConfig.load();
+        ImageCache.configure(ExperimentsConfig.get().getImageCacheSizeMb() * 1024L * 1024L);
+        HeightMapDiskCache.configure(FabricLoader.getInstance().getConfigDir().resolve("experiments").resolve("heightmaps"),
+                ExperimentsConfig.get().getHeightMapCacheSizeMb() * 1024L * 1024L);
         CommandRegistrationCallback.EVENT.register(ImageCommand::register);
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+            GenerationService.start();
+            PlacementScheduler.start(server);
+            ImageIndex.start(ImageGetter.getBasePath(), ExperimentsConfig.get().getImageIndexDepth());
+        });
+        ServerLifecycleEvents.SERVER_STARTED.register(PlacementScheduler::restoreJobs);
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            GenerationService.stop();
+            PlacementScheduler.stop();
+            ImageIndex.stop();
+        });
+        ServerTickEvents.END_SERVER_TICK.register(PlacementScheduler::onServerTick);
     }
 }
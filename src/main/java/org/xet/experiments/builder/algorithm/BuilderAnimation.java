@@ -0,0 +1,104 @@
+package org.xet.experiments.builder.algorithm;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.Vec3d;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xet.experiments.builder.generation.GenerationService;
+import org.xet.experiments.builder.placement.AnimationJob;
+import org.xet.experiments.builder.placement.BlockPalette;
+import org.xet.experiments.builder.placement.PlacementBudget;
+import org.xet.experiments.builder.placement.PlacementScheduler;
+import org.xet.experiments.builder.plan.AnimationPlan;
+import org.xet.experiments.builder.plan.GenerationParams;
+import org.xet.experiments.builder.plan.PlacementCursor;
+import org.xet.experiments.config.ExperimentsConfig;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Анимация из GIF или папки с кадрами: все кадры декодируются и квантуются в пуле генерации,
+ * после чего первый кадр строится целиком, а следующие меняют только отличающиеся блоки ({@link AnimationJob})
+ */
+public class BuilderAnimation {
+    private static final Logger LOGGER = LogManager.getLogger(BuilderAnimation.class);
+
+    private final String fileName;
+    private final int placementBudgetMs;
+    private final int loops;
+    private final GenerationParams params;
+
+    public BuilderAnimation(CommandContext<ServerCommandSource> context) {
+        ExperimentsConfig config = ExperimentsConfig.get();
+        this.fileName = context.getArgument("file", String.class);
+        this.loops = BuilderImage.getOptionalArgument(context, "loops", Integer.class, 0);
+        this.placementBudgetMs = BuilderImage.getOptionalArgument(context, "budget", Integer.class,
+                config.getPlacementBudgetMs());
+        long seed = BuilderImage.getOptionalArgument(context, "seed", Long.class, ThreadLocalRandom.current().nextLong());
+        this.params = new GenerationParams(
+                context.getArgument("width", Integer.class),
+                context.getArgument("height", Integer.class),
+                context.getArgument("typeHeightMap", String.class),
+                seed, config.getPaletteMaterial(), config.getDithering(), config.getParallelQuantizationThreshold());
+
+        LOGGER.info("Создание BuilderAnimation: файл={}, размер={}x{}, повторов={}, бюджет={}мс/тик, сид={}",
+                fileName, params.width(), params.height(), loops, placementBudgetMs, seed);
+    }
+
+    /**
+     * Асинхронное декодирование и квантование кадров с таймаутом и последующий запуск анимации
+     */
+    public CompletableFuture<Void> buildAsync(Vec3d pos, ServerWorld serverWorld, ServerCommandSource source) {
+        source.sendMessage(Text.literal("§eСид генерации: " + params.seed()));
+
+        GenerationService service = GenerationService.getInstance();
+        UUID owner = source.getEntity() != null ? source.getEntity().getUuid() : Util.NIL_UUID;
+
+        return service.submit(owner, this::generate)
+                .thenAccept(animation -> startAnimation(animation, pos, serverWorld, source))
+                .exceptionally(throwable -> BuilderImage.reportFailure(throwable, service, source));
+    }
+
+    private AnimationPlan generate() throws CommandSyntaxException {
+        ExperimentsConfig config = ExperimentsConfig.get();
+        try {
+            long start = System.nanoTime();
+            AnimationPlan animation = AnimationPlan.generate(ImageGetter.getAnimationSource(fileName), params,
+                    config.getMaxAnimationFrames(), config.getAnimationFrameDelayMs());
+            LOGGER.info("Анимация {} подготовлена: {} кадров за {} мс", fileName, animation.getFrameCount(),
+                    (System.nanoTime() - start) / 1_000_000L);
+            return animation;
+        } catch (IOException e) {
+            LOGGER.error("Ошибка загрузки анимации: {}", e.getMessage());
+            throw new SimpleCommandExceptionType(Text.literal(e.getMessage())).create();
+        }
+    }
+
+    private void startAnimation(AnimationPlan animation, Vec3d pos, ServerWorld serverWorld, ServerCommandSource source) {
+        // Курсор первого кадра читает сетку, поэтому переходы между кадрами начинаются только после постройки
+        PlacementCursor cursor = new PlacementCursor(animation.getGrid(), (int) pos.x, (int) pos.y, (int) pos.z);
+
+        long changed = 0;
+        for (int frame = 1; frame < animation.getFrameCount(); frame++) {
+            changed += animation.getChangedBlocks(frame);
+        }
+        long perFrame = animation.getFrameCount() > 1 ? changed / (animation.getFrameCount() - 1) : 0;
+
+        PlacementBudget budget = new PlacementBudget(placementBudgetMs, ExperimentsConfig.get().getTargetMspt());
+        AnimationJob job = new AnimationJob(animation, cursor, BlockPalette.get(params.material()), serverWorld,
+                source, budget, loops);
+        PlacementScheduler.getInstance().submit(job);
+
+        source.sendMessage(Text.literal("§eАнимация #" + job.getId() + ": " + animation.getFrameCount() + " кадров, первый кадр "
+                + cursor.getTotal() + " блоков, дальше в среднем " + perFrame + " блоков на кадр"));
+    }
+}
@@ -3,53 +3,64 @@ package org.xet.experiments.builder.algorithm;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
-import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.state.property.Properties;
 import net.minecraft.text.Text;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Direction;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.Vec3d;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.xet.experiments.builder.algorithm.color.ColorMap;
-import org.xet.experiments.builder.algorithm.color.ImageColorEnum;
-import org.xet.experiments.builder.algorithm.height_map.GeneratorHeightMap;
+import org.xet.experiments.builder.algorithm.color.DitheringMode;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
 import org.xet.experiments.builder.algorithm.height_map.RegistryGeneratorsHeightMap;
 import org.xet.experiments.builder.data.ColorHeightMaps;
+import org.xet.experiments.builder.generation.GenerationService;
+import org.xet.experiments.builder.placement.BlockPalette;
+import org.xet.experiments.builder.placement.PlacementBudget;
+import org.xet.experiments.builder.placement.PlacementJob;
+import org.xet.experiments.builder.placement.PlacementScheduler;
+import org.xet.experiments.builder.plan.PlacementCursor;
+import org.xet.experiments.config.ExperimentsConfig;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
 
 public class BuilderImage {
     private static final Logger LOGGER = LogManager.getLogger(BuilderImage.class);
-    private static final int BLOCKS_PER_TICK = 10;
-    private static final int GENERATION_TIMEOUT_SECONDS = 30;
     
     private ColorHeightMaps fallingBlocks;
     private final String fileName;
     private final int width;
     private final int height;
     private final String generatorName;
-    
-    // Для постепенного размещения блоков
-    private static final List<BlockPlacementTask> activeTasks = new ArrayList<>();
-    private static boolean tickListenerRegistered = false;
+    private final int placementBudgetMs;
+    private final long seed;
+    private final PaletteMaterial paletteMaterial;
+    private final DitheringMode dithering;
 
     public BuilderImage(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         this.fileName = context.getArgument("file", String.class);
         this.width = context.getArgument("width", Integer.class);
         this.height = context.getArgument("height", Integer.class);
         this.generatorName = context.getArgument("typeHeightMap", String.class);
+        this.placementBudgetMs = getOptionalArgument(context, "budget", Integer.class,
+                ExperimentsConfig.get().getPlacementBudgetMs());
+        this.seed = getOptionalArgument(context, "seed", Long.class, ThreadLocalRandom.current().nextLong());
+        this.paletteMaterial = ExperimentsConfig.get().getPaletteMaterial();
+        this.dithering = ExperimentsConfig.get().getDithering();
         
-        LOGGER.info("Создание BuilderImage: файл={}, размер={}x{}", fileName, width, height);
+        LOGGER.info("Создание BuilderImage: файл={}, размер={}x{}, бюджет={}мс/тик, сид={}", fileName, width, height, placementBudgetMs, seed);
+    }
+
+    static <T> T getOptionalArgument(CommandContext<ServerCommandSource> context, String name, Class<T> type, T defaultValue) {
+        try {
+            return context.getArgument(name, type);
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
     }
 
     /**
@@ -57,19 +68,17 @@ public class BuilderImage {
      */
     public CompletableFuture<Void> buildAsync(Vec3d pos, ServerWorld serverWorld, ServerCommandSource source) {
         LOGGER.info("Запуск асинхронной генерации изображения...");
+        source.sendMessage(Text.literal("§eСид генерации: " + seed));
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                LOGGER.info("Начало генерации...");
-                ColorHeightMaps result = getImageFallingBlocks(fileName, width, height, generatorName);
-                LOGGER.info("Генерация завершена");
-                return result;
-            } catch (CommandSyntaxException e) {
-                LOGGER.error("Ошибка при генерации: {}", e.getMessage());
-                throw new RuntimeException(e);
-            }
-        }, Executors.newSingleThreadExecutor())
-        .orTimeout(GENERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        GenerationService service = GenerationService.getInstance();
+        UUID owner = source.getEntity() != null ? source.getEntity().getUuid() : Util.NIL_UUID;
+
+        return service.submit(owner, () -> {
+            LOGGER.info("Начало генерации...");
+            ColorHeightMaps result = getImageFallingBlocks(fileName, width, height, generatorName, seed);
+            LOGGER.info("Генерация завершена");
+            return result;
+        })
         .thenAccept(result -> {
             this.fallingBlocks = result;
             source.sendMessage(Text.literal("§aГенерация завершена! Начинаем размещение блоков..."));
@@ -77,205 +86,67 @@ public class BuilderImage {
             // Запускаем постепенное размещение блоков
             startGradualBlockPlacement(pos, serverWorld, source);
         })
-        .exceptionally(throwable -> {
-            if (throwable instanceof TimeoutException) {
-                LOGGER.error("Генерация превысила таймаут {} секунд", GENERATION_TIMEOUT_SECONDS);
-                source.sendMessage(Text.literal("§cОшибка: Генерация превысила таймаут " + GENERATION_TIMEOUT_SECONDS + " секунд"));
-            } else {
-                LOGGER.error("Ошибка при генерации", throwable);
-                source.sendMessage(Text.literal("§cОшибка при генерации: " + throwable.getMessage()));
-            }
-            return null;
-        });
+        .exceptionally(throwable -> reportFailure(throwable, service, source));
     }
 
     /**
-     * Запуск постепенного размещения блоков
+     * Сообщает игроку и в лог, почему генерация не выполнена
      */
-    private void startGradualBlockPlacement(Vec3d pos, ServerWorld serverWorld, ServerCommandSource source) {
-        if (!tickListenerRegistered) {
-            registerTickListener();
+    static Void reportFailure(Throwable throwable, GenerationService service, ServerCommandSource source) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof TimeoutException) {
+            LOGGER.error("Генерация превысила таймаут {} секунд", service.getTimeoutSeconds());
+            source.sendMessage(Text.literal("§cОшибка: Генерация превысила таймаут " + service.getTimeoutSeconds() + " секунд"));
+        } else if (cause instanceof RejectedExecutionException || cause instanceof CancellationException) {
+            LOGGER.warn("Генерация не выполнена: {}", cause.getMessage());
+            source.sendMessage(Text.literal("§cГенерация не выполнена: " + cause.getMessage()));
+        } else {
+            LOGGER.error("Ошибка при генерации", cause);
+            source.sendMessage(Text.literal("§cОшибка при генерации: " + cause.getMessage()));
         }
-        
-        List<BlockPlacement> blocks = prepareBlockPlacements(pos, fallingBlocks);
-        
-        BlockPlacementTask task = new BlockPlacementTask(blocks, serverWorld, source);
-        activeTasks.add(task);
-        
-        source.sendMessage(Text.literal("§eНачинаем размещение " + blocks.size() + " блоков..."));
+        return null;
     }
 
     /**
-     * Регистрация обработчика тиков сервера
-     */
-    private static void registerTickListener() {
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            activeTasks.removeIf(task -> {
-                if (task.isCompleted()) {
-                    return true;
-                }
-                
-                task.processNextBatch();
-                return false;
-            });
-        });
-        tickListenerRegistered = true;
-    }
-
-    /**
-     * Подготовка списка блоков для размещения (снизу вверх)
+     * Запуск постепенного размещения блоков
      */
-    private List<BlockPlacement> prepareBlockPlacements(Vec3d pos, ColorHeightMaps image) {
-        List<BlockPlacement> blocks = new ArrayList<>();
-        
-        for (int i = 0; i < image.width(); i++) {
-            for (int j = 0; j < image.height(); j++) {
-                int x = (int) pos.x + i;
-                int y = (int) pos.y + image.heightMap()[i][j];
-                int z = (int) pos.z + j;
-
-                // Основной блок
-                if (image.heightMap()[i][j] == 0) {
-                    blocks.add(new BlockPlacement(
-                        new BlockPos(x, y, z), 
-                        Blocks.TORCH.getDefaultState()
-                    ));
-                }
-
-                y += 1;
-                blocks.add(new BlockPlacement(
-                    new BlockPos(x, y, z), 
-                    getBlockWithColor(image.colorMap()[i][j])
-                ));
-
-                // Настенные факелы
-                addWallTorchIfNeeded(blocks, image, i, j, x, y, z);
-            }
-        }
+    private void startGradualBlockPlacement(Vec3d pos, ServerWorld serverWorld, ServerCommandSource source) {
+        // Курсор выдаёт блоки снизу вверх прямо из сетки, не собирая план целиком
+        PlacementCursor cursor = new PlacementCursor(fallingBlocks, (int) pos.x, (int) pos.y, (int) pos.z);
         
-        // Сортируем блоки по Y координате (снизу вверх)
-        blocks.sort(Comparator.comparingInt(a -> a.pos.getY()));
+        PlacementBudget budget = new PlacementBudget(placementBudgetMs, ExperimentsConfig.get().getTargetMspt());
+        PlacementJob job = new PlacementJob(cursor, BlockPalette.get(paletteMaterial), serverWorld, source, budget);
+        PlacementScheduler.getInstance().submit(job);
         
-        return blocks;
+        source.sendMessage(Text.literal("§eНачинаем размещение " + cursor.getTotal() + " блоков (задача #" + job.getId() + ")..."));
     }
 
-    /**
-     * Добавление настенных факелов при необходимости
-     */
-    private void addWallTorchIfNeeded(List<BlockPlacement> blocks, ColorHeightMaps image, int i, int j, int x, int y, int z) {
-        if (i + 1 < image.width() && image.heightMap()[i + 1][j] - 1 == image.heightMap()[i][j]) {
-            BlockState state = Blocks.WALL_TORCH.getDefaultState().with(Properties.HORIZONTAL_FACING, Direction.EAST);
-            blocks.add(new BlockPlacement(new BlockPos(x + 1, y, z), state));
-        }
-        if (i - 1 >= 0 && image.heightMap()[i - 1][j] - 1 == image.heightMap()[i][j]) {
-            BlockState state = Blocks.WALL_TORCH.getDefaultState().with(Properties.HORIZONTAL_FACING, Direction.WEST);
-            blocks.add(new BlockPlacement(new BlockPos(x - 1, y, z), state));
-        }
-        if (j + 1 < image.height() && image.heightMap()[i][j + 1] - 1 == image.heightMap()[i][j]) {
-            BlockState state = Blocks.WALL_TORCH.getDefaultState().with(Properties.HORIZONTAL_FACING, Direction.SOUTH);
-            blocks.add(new BlockPlacement(new BlockPos(x, y, z + 1), state));
-        }
-        if (j - 1 >= 0 && image.heightMap()[i][j - 1] - 1 == image.heightMap()[i][j]) {
-            BlockState state = Blocks.WALL_TORCH.getDefaultState().with(Properties.HORIZONTAL_FACING, Direction.NORTH);
-            blocks.add(new BlockPlacement(new BlockPos(x, y, z - 1), state));
-        }
-    }
-
-    private static BlockState getBlockWithColor(ImageColorEnum color) {
-        return switch (color) {
-            case BLACK -> Blocks.BLACK_CONCRETE_POWDER.getDefaultState();
-            case BLUE -> Blocks.BLUE_CONCRETE_POWDER.getDefaultState();
-            case BROWN -> Blocks.BROWN_CONCRETE_POWDER.getDefaultState();
-            case CYAN -> Blocks.CYAN_CONCRETE_POWDER.getDefaultState();
-            case GRAY -> Blocks.GRAY_CONCRETE_POWDER.getDefaultState();
-            case GREEN -> Blocks.GREEN_CONCRETE_POWDER.getDefaultState();
-            case LIGHT_GRAY -> Blocks.LIGHT_GRAY_CONCRETE_POWDER.getDefaultState();
-            case LIME -> Blocks.LIME_CONCRETE_POWDER.getDefaultState();
-            case MAGENTA -> Blocks.MAGENTA_CONCRETE_POWDER.getDefaultState();
-            case ORANGE -> Blocks.ORANGE_CONCRETE_POWDER.getDefaultState();
-            case PINK -> Blocks.PINK_CONCRETE_POWDER.getDefaultState();
-            case PURPLE -> Blocks.PURPLE_CONCRETE_POWDER.getDefaultState();
-            case RED -> Blocks.RED_CONCRETE_POWDER.getDefaultState();
-            case WHITE -> Blocks.WHITE_CONCRETE_POWDER.getDefaultState();
-            case YELLOW -> Blocks.YELLOW_CONCRETE_POWDER.getDefaultState();
-            default -> Blocks.AIR.getDefaultState();
-        };
-    }
-
-    private ColorHeightMaps getImageFallingBlocks(String fileName, int width, int height, String generatorName) throws CommandSyntaxException {
-        BufferedImage image;
+    private ColorHeightMaps getImageFallingBlocks(String fileName, int width, int height, String generatorName, long seed) throws CommandSyntaxException {
+        ColorHeightMaps grid = new ColorHeightMaps(width, height);
         try {
-            image = ImageGetter.getImage(fileName);
+            ImageCache.Key cacheKey = ImageGetter.getCacheKey(fileName, width, height);
+            ImageCache.ColorKey colorKey = new ImageCache.ColorKey(cacheKey, paletteMaterial, dithering);
+            byte[] cachedColors = ImageCache.getColors(colorKey);
+            if (cachedColors != null) {
+                System.arraycopy(cachedColors, 0, grid.colors(), 0, cachedColors.length);
+            } else {
+                BufferedImage image = ImageGetter.getImage(cacheKey);
+                ColorMap colorMap = new ColorMap(image)
+                        .setMaterial(paletteMaterial)
+                        .setDithering(dithering)
+                        .setParallelThreshold(ExperimentsConfig.get().getParallelQuantizationThreshold());
+                colorMap.fillColorMap(grid);
+                ImageCache.putColors(colorKey, grid.colors());
+            }
         } catch (IOException e) {
             LOGGER.error("Ошибка загрузки изображения: {}", e.getMessage());
             Text textError = Text.literal(e.getMessage());
             throw new SimpleCommandExceptionType(textError).create();
         }
 
-        ColorMap colorMap = new ColorMap(image);
-        ImageColorEnum[][] colorStrings = colorMap.getColorMap(width, height);
-
-        GeneratorHeightMap generator = RegistryGeneratorsHeightMap.getGeneratorByName(generatorName);
-        int[][] heightMap = generator.getHeightMap(width, height);
-
-        return new ColorHeightMaps(width, height, colorStrings, heightMap);
-    }
-
-    /**
-     * Класс для хранения информации о размещении блока
-     */
-    private static class BlockPlacement {
-        final BlockPos pos;
-        final BlockState state;
-
-        BlockPlacement(BlockPos pos, BlockState state) {
-            this.pos = pos;
-            this.state = state;
-        }
-    }
-
-    /**
-     * Задача для постепенного размещения блоков
-     */
-    private static class BlockPlacementTask {
-        private final List<BlockPlacement> blocks;
-        private final ServerWorld serverWorld;
-        private final ServerCommandSource source;
-        private int currentIndex = 0;
-        private final int totalBlocks;
-        private int lastReportedPercent = 0;
-
-        BlockPlacementTask(List<BlockPlacement> blocks, ServerWorld serverWorld, ServerCommandSource source) {
-            this.blocks = blocks;
-            this.serverWorld = serverWorld;
-            this.source = source;
-            this.totalBlocks = blocks.size();
-        }
+        RegistryGeneratorsHeightMap.fillHeightMap(generatorName, grid, seed);
 
-        void processNextBatch() {
-            int processed = 0;
-            
-            while (currentIndex < blocks.size() && processed < BLOCKS_PER_TICK) {
-                BlockPlacement placement = blocks.get(currentIndex);
-                serverWorld.setBlockState(placement.pos, placement.state);
-                currentIndex++;
-                processed++;
-            }
-
-            // Отчет о прогрессе каждые 25%
-            int currentPercent = (currentIndex * 100) / totalBlocks;
-            if (currentPercent >= lastReportedPercent + 25) {
-                lastReportedPercent = currentPercent;
-                source.sendMessage(Text.literal("§eПрогресс размещения: " + currentPercent + "%"));
-            }
-
-            if (isCompleted()) {
-                source.sendMessage(Text.literal("§aРазмещение блоков завершено!"));
-            }
-        }
-
-        boolean isCompleted() {
-            return currentIndex >= blocks.size();
-        }
+        return grid;
     }
 }
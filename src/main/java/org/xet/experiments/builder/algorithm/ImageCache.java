@@ -0,0 +1,72 @@
+package org.xet.experiments.builder.algorithm;
+
+import org.xet.experiments.builder.algorithm.color.DitheringMode;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Кэш декодированных изображений и квантованных сеток цветов.
+ * Ключ включает путь, время изменения и размер файла, поэтому изменённый файл
+ * автоматически перечитывается, а повторный запуск с теми же параметрами
+ * не выполняет ни чтения с диска, ни работы с цветом.
+ */
+public class ImageCache {
+    private static volatile LruCache<Key, BufferedImage> decodedImages = createDecodedCache(0);
+    private static volatile LruCache<ColorKey, byte[]> colorMaps = createColorCache(0);
+
+    /**
+     * Ключ кэша: файл и размер сетки, под который он декодирован и квантован
+     */
+    public record Key(String path, long lastModified, long fileSize, int width, int height) {
+    }
+
+    /**
+     * Ключ сетки цветов: одно и то же изображение квантуется по-разному для разных материалов и сглаживания
+     */
+    public record ColorKey(Key image, PaletteMaterial material, DitheringMode dithering) {
+    }
+
+    public static void configure(long maxBytes) {
+        // Сетки цветов на порядки меньше изображений, им хватает восьмой части
+        decodedImages = createDecodedCache(maxBytes - maxBytes / 8);
+        colorMaps = createColorCache(maxBytes / 8);
+    }
+
+    public static BufferedImage getImage(Key key) {
+        return decodedImages.get(key);
+    }
+
+    public static void putImage(Key key, BufferedImage image) {
+        decodedImages.put(key, image);
+    }
+
+    /**
+     * Возвращает кэшированную сетку цветов; массив общий, изменять его нельзя
+     */
+    public static byte[] getColors(ColorKey key) {
+        return colorMaps.get(key);
+    }
+
+    public static void putColors(ColorKey key, byte[] colors) {
+        colorMaps.put(key, colors.clone());
+    }
+
+    public static List<LruCache<?, ?>> getCaches() {
+        return List.of(decodedImages, colorMaps);
+    }
+
+    public static void clear() {
+        decodedImages.clear();
+        colorMaps.clear();
+    }
+
+    private static LruCache<Key, BufferedImage> createDecodedCache(long maxBytes) {
+        return new LruCache<>("images", maxBytes, image -> (long) image.getWidth() * image.getHeight() * 4);
+    }
+
+    private static LruCache<ColorKey, byte[]> createColorCache(long maxBytes) {
+        return new LruCache<>("colors", maxBytes, colors -> colors.length);
+    }
+}
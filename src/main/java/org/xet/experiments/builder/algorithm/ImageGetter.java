@@ -2,46 +2,63 @@ package org.xet.experiments.builder.algorithm;
 
 import net.fabricmc.loader.api.FabricLoader;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class ImageGetter {
+    /**
+     * Ключ кэша для файла и размера сетки; меняется вместе с содержимым файла
+     */
+    public static ImageCache.Key getCacheKey(String fileName, int targetWidth, int targetHeight) throws IOException {
+        File file = getFile(fileName);
+        return new ImageCache.Key(file.getAbsolutePath(), file.lastModified(), file.length(), targetWidth, targetHeight);
+    }
 
-    public static BufferedImage getImage(String fileName) throws IOException {
-        String imagePath = getBasePath() + "/" + fileName;
-
-        BufferedImage image;
-        try {
-            image = ImageIO.read(new File(imagePath));
-        } catch (IOException e) {
-            throw new IOException("File not found");
+    /**
+     * Возвращает изображение из кэша или декодирует его через {@link ImageDecoder}
+     */
+    public static BufferedImage getImage(ImageCache.Key key) throws IOException {
+        BufferedImage image = ImageCache.getImage(key);
+        if (image == null) {
+            image = ImageDecoder.decode(new File(key.path()), key.width(), key.height());
+            ImageCache.putImage(key, image);
         }
-
         return image;
     }
 
-    public static String[] getAvailableImages() {
-        File folder = new File(getBasePath());
-        File[] files = folder.listFiles();
-        assert files != null;
-
-        ArrayList<String> images = new ArrayList<>();
-        for (File file : files) {
-            if (file.isDirectory()) {
-                continue;
-            }
+    /**
+     * Файл анимации (GIF) или папка с пронумерованными кадрами, декодируется через {@link AnimationDecoder}
+     */
+    public static File getAnimationSource(String fileName) throws IOException {
+        Path path = resolve(fileName);
+        if (!Files.isRegularFile(path) && !Files.isDirectory(path)) {
+            throw new IOException("File not found");
+        }
+        return path.toFile();
+    }
 
-            if (file.getName().endsWith(".png") || file.getName().endsWith(".jpg"))
-                images.add(file.getName());
+    private static File getFile(String fileName) throws IOException {
+        Path path = resolve(fileName);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("File not found");
         }
+        return path.toFile();
+    }
 
-        return images.toArray(new String[0]);
+    private static Path resolve(String fileName) throws IOException {
+        Path basePath = getBasePath();
+        Path path = basePath.resolve(fileName).normalize();
+        // Имя файла может содержать подпапки, но не должно выводить за пределы папки игры
+        if (!path.startsWith(basePath)) {
+            throw new IOException("File not found");
+        }
+        return path;
     }
 
-    private static String getBasePath() {
-        return FabricLoader.getInstance().getGameDir().toString();
+    public static Path getBasePath() {
+        return FabricLoader.getInstance().getGameDir().toAbsolutePath().normalize();
     }
 }
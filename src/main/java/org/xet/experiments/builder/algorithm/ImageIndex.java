@@ -0,0 +1,184 @@
+package org.xet.experiments.builder.algorithm;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Индекс изображений в папке игры и её подпапках для подсказок команды.
+ * Строится один раз при запуске сервера и поддерживается в актуальном состоянии через WatchService,
+ * поэтому подсказка - это выборка по префиксу из отсортированного множества,
+ * не зависящая от числа файлов в папке.
+ */
+public class ImageIndex {
+    private static final Logger LOGGER = LogManager.getLogger(ImageIndex.class);
+
+    private static volatile ImageIndex instance;
+
+    private final Path root;
+    private final int maxDepth;
+    // Относительные пути с разделителем '/'
+    private final ConcurrentSkipListSet<String> images = new ConcurrentSkipListSet<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+    private final Thread watchThread;
+
+    private ImageIndex(Path root, int maxDepth) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxDepth = maxDepth;
+        this.watchService = this.root.getFileSystem().newWatchService();
+        this.watchThread = new Thread(this::processEvents, "experiments-image-index");
+        this.watchThread.setDaemon(true);
+    }
+
+    public static void start(Path root, int maxDepth) {
+        try {
+            ImageIndex index = new ImageIndex(root, maxDepth);
+            index.scan(index.root);
+            index.watchThread.start();
+            instance = index;
+            LOGGER.info("Индекс изображений построен: {} файлов", index.images.size());
+        } catch (IOException e) {
+            LOGGER.error("Не удалось построить индекс изображений: {}", e.getMessage());
+        }
+    }
+
+    public static void stop() {
+        ImageIndex index = instance;
+        instance = null;
+        if (index != null) {
+            try {
+                index.watchService.close();
+            } catch (IOException e) {
+                LOGGER.warn("Ошибка при остановке индекса изображений: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Изображения, относительный путь которых начинается с префикса
+     */
+    public static NavigableSet<String> getImages(String prefix) {
+        ImageIndex index = instance;
+        if (index == null) {
+            return new ConcurrentSkipListSet<>();
+        }
+        return index.images.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    public static boolean isImageFile(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".gif");
+    }
+
+    private void scan(Path start) throws IOException {
+        int startDepth = depthOf(start);
+        if (startDepth >= maxDepth) {
+            return;
+        }
+        Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), maxDepth - startDepth, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isImageFile(file.getFileName().toString())) {
+                    images.add(toKey(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path dir) throws IOException {
+        // Файлы глубже maxDepth не индексируются, значит и следить за такими папками не нужно
+        if (depthOf(dir) < maxDepth) {
+            WatchKey key = dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, dir);
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir = watchedDirectories.get(key);
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    handleEvent(dir, event);
+                }
+            }
+
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+        }
+    }
+
+    private void handleEvent(Path dir, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            rescan();
+            return;
+        }
+
+        Path path = dir.resolve((Path) event.context());
+        String key = toKey(path);
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            images.remove(key);
+            // Удалена папка - удаляем всё, что было внутри
+            images.subSet(key + "/", true, key + "/" + Character.MAX_VALUE, false).clear();
+        } else if (Files.isDirectory(path)) {
+            try {
+                scan(path);
+            } catch (IOException e) {
+                LOGGER.warn("Не удалось проиндексировать {}: {}", path, e.getMessage());
+            }
+        } else if (isImageFile(path.getFileName().toString()) && depthOf(path) <= maxDepth) {
+            images.add(key);
+        }
+    }
+
+    private void rescan() {
+        images.clear();
+        try {
+            scan(root);
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось перестроить индекс изображений: {}", e.getMessage());
+        }
+    }
+
+    private int depthOf(Path path) {
+        Path relative = root.relativize(path);
+        return relative.toString().isEmpty() ? 0 : relative.getNameCount();
+    }
+
+    private String toKey(Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+}
@@ -1,8 +0,0 @@
-package org.xet.experiments.builder.data;
-
-import org.xet.experiments.builder.algorithm.color.ImageColorEnum;
-
-import java.awt.*;
-
-public record ImageRGB(Color color, ImageColorEnum colorEnum) {
-}
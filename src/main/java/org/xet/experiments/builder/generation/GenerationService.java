@@ -0,0 +1,138 @@
+package org.xet.experiments.builder.generation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xet.experiments.config.ExperimentsConfig;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий для мода пул генерации изображений.
+ * Ограниченное число потоков и очередь с контролем допуска, лимит задач на игрока,
+ * таймаут с прерыванием потока генератора и корректная остановка вместе с сервером.
+ */
+public class GenerationService {
+    private static final Logger LOGGER = LogManager.getLogger(GenerationService.class);
+
+    private static volatile GenerationService instance;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService watchdog;
+    private final int maxJobsPerOwner;
+    private final int timeoutSeconds;
+    private final Map<UUID, AtomicInteger> jobsPerOwner = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+    private GenerationService(int threads, int maxQueuedJobs, int maxJobsPerOwner, int timeoutSeconds) {
+        this.maxJobsPerOwner = maxJobsPerOwner;
+        this.timeoutSeconds = timeoutSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs), daemonThreads("experiments-generation"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("experiments-generation-watchdog"));
+    }
+
+    public static void start() {
+        ExperimentsConfig config = ExperimentsConfig.get();
+        instance = new GenerationService(config.getGenerationThreads(), config.getMaxQueuedJobs(),
+                config.getMaxJobsPerPlayer(), config.getGenerationTimeoutSeconds());
+        LOGGER.info("Пул генерации запущен: потоков={}, очередь={}", config.getGenerationThreads(), config.getMaxQueuedJobs());
+    }
+
+    public static void stop() {
+        GenerationService service = instance;
+        instance = null;
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    public static GenerationService getInstance() {
+        GenerationService service = instance;
+        if (service == null) {
+            throw new IllegalStateException("Generation service is not running");
+        }
+        return service;
+    }
+
+    /**
+     * Ставит задачу в очередь. Если очередь заполнена или у владельца исчерпан лимит,
+     * возвращается future, завершённый с {@link RejectedExecutionException}.
+     * По таймауту future завершается с {@link TimeoutException}, а поток генерации прерывается.
+     */
+    public <T> CompletableFuture<T> submit(UUID owner, Callable<T> job) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        AtomicInteger ownerJobs = jobsPerOwner.computeIfAbsent(owner, key -> new AtomicInteger());
+        if (ownerJobs.incrementAndGet() > maxJobsPerOwner) {
+            ownerJobs.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException(
+                    "Уже выполняется максимум задач генерации (" + maxJobsPerOwner + ")"));
+            return result;
+        }
+
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            ScheduledFuture<?> timeout = watchdog.schedule(
+                    () -> result.completeExceptionally(new TimeoutException()), timeoutSeconds, TimeUnit.SECONDS);
+            try {
+                result.complete(job.call());
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            } finally {
+                timeout.cancel(false);
+            }
+            return null;
+        });
+
+        pending.add(result);
+        result.whenComplete((value, throwable) -> {
+            pending.remove(result);
+            ownerJobs.decrementAndGet();
+            // Таймаут или отмена снаружи: прерываем генератор, если он ещё работает
+            if (throwable instanceof TimeoutException || throwable instanceof CancellationException) {
+                task.cancel(true);
+            }
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new RejectedExecutionException("Очередь генерации переполнена, попробуйте позже"));
+        }
+
+        return result;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    private void shutdown() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+        for (CompletableFuture<?> future : pending) {
+            future.completeExceptionally(new CancellationException("Сервер останавливается"));
+        }
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warn("Потоки генерации не завершились за 5 секунд");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Пул генерации остановлен");
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
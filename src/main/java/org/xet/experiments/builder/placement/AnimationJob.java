@@ -0,0 +1,137 @@
+package org.xet.experiments.builder.placement;
+
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import org.xet.experiments.builder.plan.AnimationPlan;
+import org.xet.experiments.builder.plan.BlockCursor;
+import org.xet.experiments.builder.plan.FrameDeltaCursor;
+import org.xet.experiments.builder.plan.PlacementCursor;
+
+/**
+ * Анимация из падающих блоков: первый кадр строится как обычная постройка, дальше по задержкам кадров
+ * ставятся только блоки, изменившиеся относительно того, что уже стоит в мире ({@link FrameDeltaCursor}).
+ * Время кадров считается в тиках мира; если переход не успел за задержку кадра, следующие кадры
+ * пропускаются до того, который должен идти сейчас, так что темп анимации сохраняется.
+ * В остальном это обычная задача планировщика с общим бюджетом, приоритетом, паузой и отменой,
+ * но на диск она не сохраняется: после перезапуска в мире остаётся последний показанный кадр.
+ */
+public class AnimationJob extends PlacementJob {
+    private static final int MS_PER_TICK = 50;
+
+    private final AnimationPlan animation;
+    private final PlacementCursor buildCursor;
+    private final int loops;
+    private FrameDeltaCursor frameCursor;
+    private boolean built = false;
+    private int frame = 0;
+    private int playedLoops = 0;
+    private long frameStartTick;
+
+    /**
+     * loops - сколько раз проиграть анимацию, 0 - пока задачу не отменят
+     */
+    public AnimationJob(AnimationPlan animation, PlacementCursor buildCursor, BlockPalette palette, ServerWorld serverWorld,
+                        ServerCommandSource source, PlacementBudget budget, int loops) {
+        super(buildCursor, palette, serverWorld, source, budget);
+        this.animation = animation;
+        this.buildCursor = buildCursor;
+        this.loops = loops;
+    }
+
+    @Override
+    long placeFor(long nanos) {
+        if (built && frameCursor == null && !startDueFrame()) {
+            // Текущий кадр ещё показывается
+            return 0;
+        }
+        return super.placeFor(nanos);
+    }
+
+    @Override
+    BlockCursor getActiveCursor() {
+        return built ? frameCursor : buildCursor;
+    }
+
+    @Override
+    void onCursorFinished() {
+        if (!built) {
+            built = true;
+            frameStartTick = getWorld().getTime();
+            notifyOwner(Text.literal("§aАнимация #" + getId() + " построена, кадров: " + animation.getFrameCount()));
+        }
+        frameCursor = null;
+        if (animation.getFrameCount() == 1) {
+            complete(Text.literal("§aАнимация #" + getId() + " состоит из одного кадра, размещение завершено"));
+        }
+    }
+
+    @Override
+    public boolean resume() {
+        if (!super.resume()) {
+            return false;
+        }
+        // После паузы показ продолжается с текущего кадра, а не догоняет пропущенное время
+        frameStartTick = getWorld().getTime();
+        return true;
+    }
+
+    /**
+     * Переходит к кадру, который должен показываться сейчас; возвращает false, если время текущего не вышло
+     */
+    private boolean startDueFrame() {
+        long now = getWorld().getTime();
+        int next = frame;
+        long nextStart = frameStartTick;
+        while (now >= nextStart + getDelayTicks(next)) {
+            nextStart += getDelayTicks(next);
+            next++;
+            if (next == animation.getFrameCount()) {
+                next = 0;
+                playedLoops++;
+                if (loops > 0 && playedLoops >= loops) {
+                    // Последний кадр остаётся в мире
+                    complete(Text.literal("§aАнимация #" + getId() + " завершена"));
+                    return false;
+                }
+            }
+        }
+        frameStartTick = nextStart;
+        if (next == frame) {
+            return false;
+        }
+
+        frame = next;
+        frameCursor = new FrameDeltaCursor(animation.getGrid(), animation.getFrame(frame),
+                buildCursor.getOriginX(), buildCursor.getOriginY(), buildCursor.getOriginZ());
+        return true;
+    }
+
+    private int getDelayTicks(int frame) {
+        return Math.max(1, Math.round(animation.getDelayMs(frame) / (float) MS_PER_TICK));
+    }
+
+    @Override
+    boolean isPersistent() {
+        return false;
+    }
+
+    /**
+     * Номер показанного кадра, начиная с единицы
+     */
+    public int getFrame() {
+        return frame + 1;
+    }
+
+    public int getFrameCount() {
+        return animation.getFrameCount();
+    }
+
+    /**
+     * Сколько блоков осталось поставить до полного кадра
+     */
+    public int getPendingBlocks() {
+        BlockCursor cursor = getActiveCursor();
+        return cursor == null ? 0 : cursor.getTotal() - cursor.getIndex();
+    }
+}
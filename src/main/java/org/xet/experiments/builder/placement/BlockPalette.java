@@ -0,0 +1,74 @@
+package org.xet.experiments.builder.placement;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import net.minecraft.state.property.Properties;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Direction;
+import org.xet.experiments.builder.algorithm.color.ImageColorEnum;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
+import org.xet.experiments.builder.plan.BlockCodes;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Состояния блоков для кодов плана ({@link BlockCodes}) в выбранном материале.
+ * Таблицы для всех материалов строятся один раз при первом обращении,
+ * после чего перевод кода в состояние блока - чтение из массива.
+ */
+public final class BlockPalette {
+    private final PaletteMaterial material;
+    private final BlockState[] states = new BlockState[BlockCodes.COUNT];
+
+    private BlockPalette(PaletteMaterial material) {
+        this.material = material;
+
+        for (ImageColorEnum color : ImageColorEnum.values()) {
+            states[BlockCodes.color(color)] = color == ImageColorEnum.UNKNOWN
+                    ? Blocks.AIR.getDefaultState()
+                    : getColoredBlock(color, material).getDefaultState();
+        }
+        states[BlockCodes.TORCH] = Blocks.TORCH.getDefaultState();
+        states[BlockCodes.WALL_TORCH_EAST] = getWallTorch(Direction.EAST);
+        states[BlockCodes.WALL_TORCH_WEST] = getWallTorch(Direction.WEST);
+        states[BlockCodes.WALL_TORCH_SOUTH] = getWallTorch(Direction.SOUTH);
+        states[BlockCodes.WALL_TORCH_NORTH] = getWallTorch(Direction.NORTH);
+    }
+
+    public static BlockPalette get(PaletteMaterial material) {
+        return Holder.PALETTES.get(material);
+    }
+
+    public BlockState getState(int code) {
+        return states[code];
+    }
+
+    public PaletteMaterial getMaterial() {
+        return material;
+    }
+
+    private static Block getColoredBlock(ImageColorEnum color, PaletteMaterial material) {
+        // Имена цветов совпадают с именами красителей: white_wool, light_blue_terracotta и т.д.
+        Identifier id = new Identifier(color.name().toLowerCase(Locale.ROOT) + "_" + material.getName());
+        return Registries.BLOCK.getOrEmpty(id)
+                .orElseThrow(() -> new IllegalStateException("Missing palette block " + id));
+    }
+
+    private static BlockState getWallTorch(Direction facing) {
+        return Blocks.WALL_TORCH.getDefaultState().with(Properties.HORIZONTAL_FACING, facing);
+    }
+
+    private static class Holder {
+        private static final Map<PaletteMaterial, BlockPalette> PALETTES = new EnumMap<>(PaletteMaterial.class);
+
+        static {
+            for (PaletteMaterial material : PaletteMaterial.values()) {
+                PALETTES.put(material, new BlockPalette(material));
+            }
+        }
+    }
+}
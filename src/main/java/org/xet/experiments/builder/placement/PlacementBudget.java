@@ -0,0 +1,78 @@
+package org.xet.experiments.builder.placement;
+
+/**
+ * Адаптивный бюджет размещения блоков на один тик.
+ * Измеряет среднюю стоимость установки блока и подбирает размер пачки так,
+ * чтобы уложиться в бюджет по времени; бюджет уменьшается, когда сервер
+ * не укладывается в целевое MSPT, и постепенно растёт обратно при наличии запаса.
+ */
+public class PlacementBudget {
+    private static final long NANOS_PER_MS = 1_000_000L;
+    private static final long MIN_BUDGET_NANOS = NANOS_PER_MS / 2;
+    private static final double INITIAL_NANOS_PER_BLOCK = 20_000.0;
+    private static final double COST_SMOOTHING = 0.2;
+    private static final int MAX_BATCH = 1 << 16;
+
+    private final long maxBudgetNanos;
+    private final double targetMspt;
+    private long budgetNanos;
+    private double nanosPerBlock = INITIAL_NANOS_PER_BLOCK;
+    private long lastSpentNanos = 0;
+
+    public PlacementBudget(int maxBudgetMs, double targetMspt) {
+        this.maxBudgetNanos = Math.max(MIN_BUDGET_NANOS, maxBudgetMs * NANOS_PER_MS);
+        this.targetMspt = targetMspt;
+        this.budgetNanos = this.maxBudgetNanos;
+    }
+
+    /**
+     * Пересчитывает бюджет по среднему времени тика сервера
+     */
+    public void adapt(double mspt) {
+        // Время тика без учёта нашего размещения - остальная нагрузка сервера
+        double otherWorkMs = Math.max(0.0, mspt - lastSpentNanos / (double) NANOS_PER_MS);
+        long headroomNanos = (long) ((targetMspt - otherWorkMs) * NANOS_PER_MS);
+
+        if (mspt > targetMspt) {
+            budgetNanos /= 2;
+        } else {
+            budgetNanos += maxBudgetNanos / 10;
+        }
+        budgetNanos = Math.min(budgetNanos, headroomNanos);
+        budgetNanos = Math.max(MIN_BUDGET_NANOS, Math.min(maxBudgetNanos, budgetNanos));
+    }
+
+    /**
+     * Сколько блоков можно разместить в текущем бюджете
+     */
+    public int nextBatchSize() {
+        return batchSizeFor(budgetNanos);
+    }
+
+    /**
+     * Сколько блоков укладывается в заданное время по текущей оценке стоимости блока
+     */
+    public int batchSizeFor(long nanos) {
+        return (int) Math.max(1, Math.min(MAX_BATCH, nanos / nanosPerBlock));
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public long getMaxBudgetNanos() {
+        return maxBudgetNanos;
+    }
+
+    /**
+     * Учитывает фактическое время, потраченное на пачку блоков
+     */
+    public void record(int blocks, long elapsedNanos) {
+        lastSpentNanos = elapsedNanos;
+        if (blocks <= 0) {
+            return;
+        }
+        double cost = elapsedNanos / (double) blocks;
+        nanosPerBlock += (cost - nanosPerBlock) * COST_SMOOTHING;
+    }
+}
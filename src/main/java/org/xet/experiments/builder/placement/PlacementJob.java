@@ -0,0 +1,265 @@
+package org.xet.experiments.builder.placement;
+
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import org.xet.experiments.builder.plan.BlockCursor;
+import org.xet.experiments.builder.plan.PlacementCursor;
+import org.xet.experiments.config.ExperimentsConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Задача постепенного размещения блоков одной постройки.
+ * Блоки берутся из {@link PlacementCursor} по мере размещения, так что задача держит в памяти только сетку.
+ * Создаётся в любом потоке, но выполняется только в потоке сервера через {@link PlacementScheduler}.
+ * Планировщик периодически сохраняет позицию курсора, поэтому задача переживает перезапуск сервера.
+ */
+public class PlacementJob {
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        CANCELLED
+    }
+
+    private final int id;
+    private final PlacementCursor cursor;
+    private final BlockPalette palette;
+    private final ServerWorld serverWorld;
+    private final ServerCommandSource source;
+    private final String ownerName;
+    private final PlacementBudget budget;
+    private final SectionBlockWriter sectionWriter;
+    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+    private final int totalBlocks;
+    private PlacementPriority priority = PlacementPriority.NORMAL;
+    private State state = State.QUEUED;
+    private int lastReportedPercent = 0;
+    private int savedIndex = -1;
+
+    public PlacementJob(PlacementCursor cursor, BlockPalette palette, ServerWorld serverWorld, ServerCommandSource source, PlacementBudget budget) {
+        this(NEXT_ID.getAndIncrement(), cursor, palette, serverWorld, source, source.getName(), budget);
+    }
+
+    /**
+     * Восстановление сохранённой задачи: источника команды уже нет, сообщения получает владелец, если он в сети
+     */
+    PlacementJob(int id, PlacementCursor cursor, BlockPalette palette, ServerWorld serverWorld, String ownerName, PlacementBudget budget) {
+        this(id, cursor, palette, serverWorld, null, ownerName, budget);
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private PlacementJob(int id, PlacementCursor cursor, BlockPalette palette, ServerWorld serverWorld,
+                         ServerCommandSource source, String ownerName, PlacementBudget budget) {
+        this.id = id;
+        this.cursor = cursor;
+        this.palette = palette;
+        this.serverWorld = serverWorld;
+        this.source = source;
+        this.ownerName = ownerName;
+        this.budget = budget;
+        this.sectionWriter = ExperimentsConfig.get().isDirectSectionWrites() ? new SectionBlockWriter(serverWorld) : null;
+        this.totalBlocks = cursor.getTotal();
+        this.lastReportedPercent = getPercent() / 25 * 25;
+    }
+
+    void start() {
+        if (state == State.QUEUED) {
+            state = State.RUNNING;
+        }
+    }
+
+    /**
+     * Приостанавливает размещение; возвращает false, если задача уже завершена или на паузе
+     */
+    public boolean pause() {
+        if (state != State.QUEUED && state != State.RUNNING) {
+            return false;
+        }
+        state = State.PAUSED;
+        return true;
+    }
+
+    public boolean resume() {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        state = State.RUNNING;
+        return true;
+    }
+
+    /**
+     * Отменяет задачу; уже поставленные блоки остаются в мире
+     */
+    public boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        state = State.CANCELLED;
+        return true;
+    }
+
+    /**
+     * Размещает блоки, пока не истечёт выделенное время; возвращает фактически потраченное время
+     */
+    long placeFor(long nanos) {
+        BlockCursor blocks = getActiveCursor();
+        long allowed = Math.min(nanos, budget.getMaxBudgetNanos());
+        int batchSize = budget.batchSizeFor(allowed);
+        long start = System.nanoTime();
+        int processed;
+
+        if (sectionWriter != null) {
+            processed = sectionWriter.write(blocks, palette, batchSize);
+        } else {
+            processed = placeOneByOne(blocks, batchSize, start + allowed);
+        }
+        long elapsed = System.nanoTime() - start;
+        budget.record(processed, elapsed);
+
+        // Отчет о прогрессе каждые 25%
+        int currentPercent = getPercent();
+        if (currentPercent >= lastReportedPercent + 25) {
+            lastReportedPercent = currentPercent;
+            notifyOwner(Text.literal("§eПрогресс размещения #" + id + ": " + currentPercent + "%"));
+        }
+
+        if (!blocks.hasRemaining()) {
+            onCursorFinished();
+        }
+        return elapsed;
+    }
+
+    /**
+     * Курсор, из которого сейчас берутся блоки; у обычной постройки это курсор всей сетки
+     */
+    BlockCursor getActiveCursor() {
+        return cursor;
+    }
+
+    /**
+     * Активный курсор выдал все блоки; обычная постройка на этом завершена
+     */
+    void onCursorFinished() {
+        complete(Text.literal("§aРазмещение блоков #" + id + " завершено!"));
+    }
+
+    void complete(Text message) {
+        state = State.COMPLETED;
+        notifyOwner(message);
+    }
+
+    private int placeOneByOne(BlockCursor blocks, int batchSize, long deadline) {
+        int processed = 0;
+
+        while (processed < batchSize && blocks.advance()) {
+            mutablePos.set(blocks.getX(), blocks.getY(), blocks.getZ());
+            serverWorld.setBlockState(mutablePos, palette.getState(blocks.getCode()));
+            processed++;
+
+            // Страховка на случай, если оценка стоимости блока устарела
+            if ((processed & 63) == 0 && System.nanoTime() > deadline) {
+                break;
+            }
+        }
+        return processed;
+    }
+
+    void notifyOwner(Text message) {
+        if (source != null) {
+            source.sendMessage(message);
+            return;
+        }
+        ServerPlayerEntity player = serverWorld.getServer().getPlayerManager().getPlayer(ownerName);
+        if (player != null) {
+            player.sendMessage(message);
+        }
+    }
+
+    /**
+     * Отмечает, что текущая позиция курсора сохранена на диск
+     */
+    void markSaved() {
+        savedIndex = cursor.getIndex();
+    }
+
+    boolean hasUnsavedProgress() {
+        return savedIndex != cursor.getIndex();
+    }
+
+    /**
+     * Сохраняется ли задача на диск, чтобы продолжиться после перезапуска сервера
+     */
+    boolean isPersistent() {
+        return true;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    PlacementCursor getCursor() {
+        return cursor;
+    }
+
+    BlockPalette getPalette() {
+        return palette;
+    }
+
+    int getBudgetMs() {
+        return (int) (budget.getMaxBudgetNanos() / 1_000_000L);
+    }
+
+    public ServerWorld getWorld() {
+        return serverWorld;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public PlacementPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(PlacementPriority priority) {
+        this.priority = priority;
+    }
+
+    public int getPlacedBlocks() {
+        return cursor.getIndex();
+    }
+
+    public int getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    public int getPercent() {
+        return totalBlocks == 0 ? 100 : (int) ((cursor.getIndex() * 100L) / totalBlocks);
+    }
+
+    long getMaxBudgetNanos() {
+        return budget.getMaxBudgetNanos();
+    }
+
+    public boolean isCompleted() {
+        return state == State.COMPLETED;
+    }
+
+    /**
+     * Задача завершена или отменена и больше не будет размещать блоки
+     */
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.CANCELLED;
+    }
+}
@@ -0,0 +1,203 @@
+package org.xet.experiments.builder.placement;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.WorldSavePath;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
+import org.xet.experiments.builder.data.ColorHeightMaps;
+import org.xet.experiments.builder.plan.PlacementCursor;
+import org.xet.experiments.config.ExperimentsConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Хранение задач размещения в папке мира, чтобы постройка продолжалась после перезапуска сервера.
+ * Для каждой задачи пишутся два файла: сетка цветов и высот (один раз, из неё курсор заново строит порядок блоков)
+ * и небольшое состояние с позицией курсора, которое перезаписывается на каждой контрольной точке.
+ */
+class PlacementJobStore {
+    private static final Logger LOGGER = LogManager.getLogger(PlacementJobStore.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final String GRID_SUFFIX = ".grid.nbt";
+    private static final String STATE_SUFFIX = ".job.nbt";
+
+    private final Path directory;
+
+    PlacementJobStore(MinecraftServer server) {
+        this.directory = server.getSavePath(WorldSavePath.ROOT).resolve("experiments").resolve("placements").normalize();
+    }
+
+    /**
+     * Сохраняет сетку и начальное состояние новой задачи
+     */
+    void create(PlacementJob job) {
+        ColorHeightMaps grid = job.getCursor().getGrid();
+        NbtCompound nbt = new NbtCompound();
+        nbt.putInt("version", FORMAT_VERSION);
+        nbt.putInt("width", grid.width());
+        nbt.putInt("height", grid.height());
+        nbt.putByteArray("colors", grid.colors());
+        nbt.putIntArray("heights", grid.heights());
+        try {
+            write(nbt, getGridFile(job.getId()));
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось сохранить задачу размещения #{}: {}", job.getId(), e.getMessage());
+            return;
+        }
+        save(job);
+    }
+
+    /**
+     * Контрольная точка: записывает текущую позицию курсора и настройки задачи
+     */
+    void save(PlacementJob job) {
+        PlacementCursor cursor = job.getCursor();
+        NbtCompound nbt = new NbtCompound();
+        nbt.putInt("version", FORMAT_VERSION);
+        nbt.putString("world", job.getWorld().getRegistryKey().getValue().toString());
+        nbt.putString("owner", job.getOwnerName());
+        nbt.putString("material", job.getPalette().getMaterial().getName());
+        nbt.putString("priority", job.getPriority().name());
+        nbt.putBoolean("paused", job.getState() == PlacementJob.State.PAUSED);
+        nbt.putInt("budgetMs", job.getBudgetMs());
+        nbt.putInt("x", cursor.getOriginX());
+        nbt.putInt("y", cursor.getOriginY());
+        nbt.putInt("z", cursor.getOriginZ());
+        nbt.putInt("placed", cursor.getIndex());
+        try {
+            write(nbt, getStateFile(job.getId()));
+            job.markSaved();
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось сохранить состояние задачи размещения #{}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    void delete(int id) {
+        try {
+            Files.deleteIfExists(getStateFile(id));
+            Files.deleteIfExists(getGridFile(id));
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось удалить файлы задачи размещения #{}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Загружает все сохранённые задачи; задачи, которые не удалось восстановить, остаются на диске
+     */
+    List<PlacementJob> loadAll(MinecraftServer server) {
+        List<PlacementJob> jobs = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return jobs;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + STATE_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                int id;
+                try {
+                    id = Integer.parseInt(name.substring(0, name.length() - STATE_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                try {
+                    PlacementJob job = load(server, id);
+                    if (job != null) {
+                        jobs.add(job);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Не удалось восстановить задачу размещения #{}: {}", id, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось прочитать сохранённые задачи размещения: {}", e.getMessage());
+        }
+        return jobs;
+    }
+
+    private PlacementJob load(MinecraftServer server, int id) throws IOException {
+        NbtCompound state = read(getStateFile(id));
+        NbtCompound gridNbt = read(getGridFile(id));
+        if (state.getInt("version") != FORMAT_VERSION || gridNbt.getInt("version") != FORMAT_VERSION) {
+            throw new IOException("unsupported format version");
+        }
+
+        Identifier worldId = new Identifier(state.getString("world"));
+        ServerWorld world = server.getWorld(RegistryKey.of(RegistryKeys.WORLD, worldId));
+        if (world == null) {
+            LOGGER.warn("Мир {} задачи размещения #{} не найден, задача пропущена", worldId, id);
+            return null;
+        }
+
+        ColorHeightMaps grid = new ColorHeightMaps(gridNbt.getInt("width"), gridNbt.getInt("height"));
+        byte[] colors = gridNbt.getByteArray("colors");
+        int[] heights = gridNbt.getIntArray("heights");
+        if (colors.length != grid.size() || heights.length != grid.size()) {
+            throw new IOException("grid size mismatch");
+        }
+        System.arraycopy(colors, 0, grid.colors(), 0, colors.length);
+        System.arraycopy(heights, 0, grid.heights(), 0, heights.length);
+
+        PlacementCursor cursor = new PlacementCursor(grid, state.getInt("x"), state.getInt("y"), state.getInt("z"));
+        cursor.skip(state.getInt("placed"));
+
+        PaletteMaterial material = PaletteMaterial.fromName(state.getString("material"));
+        PlacementBudget budget = new PlacementBudget(state.getInt("budgetMs"), ExperimentsConfig.get().getTargetMspt());
+        PlacementJob job = new PlacementJob(id, cursor, BlockPalette.get(material), world, state.getString("owner"), budget);
+        job.setPriority(PlacementPriority.valueOf(state.getString("priority").toUpperCase(Locale.ROOT)));
+        if (state.getBoolean("paused")) {
+            job.pause();
+        }
+        job.markSaved();
+        return job;
+    }
+
+    private Path getGridFile(int id) {
+        return directory.resolve(id + GRID_SUFFIX);
+    }
+
+    private Path getStateFile(int id) {
+        return directory.resolve(id + STATE_SUFFIX);
+    }
+
+    private static NbtCompound read(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return NbtIo.readCompressed(input);
+        }
+    }
+
+    /**
+     * Запись через временный файл, чтобы падение сервера не оставило файл наполовину записанным
+     */
+    private void write(NbtCompound nbt, Path file) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "placement", ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                NbtIo.writeCompressed(nbt, output);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.xet.experiments.builder.placement;
+
+/**
+ * Приоритет задачи размещения: доля бюджета тика пропорциональна весу
+ */
+public enum PlacementPriority {
+    LOW(1),
+    NORMAL(2),
+    HIGH(4);
+
+    private final int weight;
+
+    PlacementPriority(int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
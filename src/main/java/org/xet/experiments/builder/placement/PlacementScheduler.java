@@ -0,0 +1,216 @@
+package org.xet.experiments.builder.placement;
+
+import net.minecraft.server.MinecraftServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xet.experiments.config.ExperimentsConfig;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Планировщик размещения блоков.
+ * Задачи передаются из любых потоков через неблокирующую очередь и забираются потоком сервера
+ * в начале обработки тика. Бюджет тика общий для всех построек во всех мирах и делится между ними
+ * по весу приоритета; начало обхода сдвигается каждый тик, а неиспользованное время переходит
+ * к следующей задаче.
+ * Незавершённые задачи сохраняются в папку мира при создании, на контрольных точках и при остановке сервера
+ * и продолжаются после следующего запуска; анимации не сохраняются.
+ */
+public class PlacementScheduler {
+    private static final Logger LOGGER = LogManager.getLogger(PlacementScheduler.class);
+    private static final int MAX_TICK_BUDGET_MS = 50;
+    private static final int TICKS_PER_SECOND = 20;
+
+    private static volatile PlacementScheduler instance;
+
+    private final ConcurrentLinkedQueue<PlacementJob> incoming = new ConcurrentLinkedQueue<>();
+    // Доступен только из потока сервера
+    private final List<PlacementJob> active = new ArrayList<>();
+    private final PlacementBudget tickBudget;
+    private final PlacementJobStore store;
+    private final int checkpointIntervalTicks;
+    private int roundRobinOffset = 0;
+    private int ticksSinceCheckpoint = 0;
+
+    private PlacementScheduler(MinecraftServer server, ExperimentsConfig config) {
+        this.tickBudget = new PlacementBudget(MAX_TICK_BUDGET_MS, config.getTargetMspt());
+        this.store = new PlacementJobStore(server);
+        this.checkpointIntervalTicks = config.getCheckpointIntervalSeconds() * TICKS_PER_SECOND;
+    }
+
+    public static void start(MinecraftServer server) {
+        instance = new PlacementScheduler(server, ExperimentsConfig.get());
+    }
+
+    /**
+     * Возобновляет задачи, сохранённые при прошлом запуске; вызывается, когда миры уже загружены
+     */
+    public static void restoreJobs(MinecraftServer server) {
+        PlacementScheduler scheduler = instance;
+        if (scheduler == null) {
+            return;
+        }
+        List<PlacementJob> jobs = scheduler.store.loadAll(server);
+        scheduler.incoming.addAll(jobs);
+        if (!jobs.isEmpty()) {
+            LOGGER.info("Восстановлено задач размещения: {}", jobs.size());
+        }
+    }
+
+    public static void stop() {
+        PlacementScheduler scheduler = instance;
+        instance = null;
+        if (scheduler == null) {
+            return;
+        }
+        int saved = 0;
+        for (PlacementJob job : scheduler.getJobs()) {
+            if (!job.isPersistent()) {
+                continue;
+            }
+            if (job.isFinished()) {
+                scheduler.store.delete(job.getId());
+            } else {
+                scheduler.store.save(job);
+                saved++;
+            }
+        }
+        if (saved > 0) {
+            LOGGER.info("Сервер останавливается, сохранено незавершённых задач размещения: {}", saved);
+        }
+    }
+
+    public static PlacementScheduler getInstance() {
+        PlacementScheduler scheduler = instance;
+        if (scheduler == null) {
+            throw new IllegalStateException("Placement scheduler is not running");
+        }
+        return scheduler;
+    }
+
+    public static void onServerTick(MinecraftServer server) {
+        PlacementScheduler scheduler = instance;
+        if (scheduler != null) {
+            scheduler.tick(server.getTickTime());
+        }
+    }
+
+    /**
+     * Сохраняет задачу на диск и передаёт её планировщику; можно вызывать из любого потока
+     */
+    public void submit(PlacementJob job) {
+        if (job.isPersistent()) {
+            store.create(job);
+        }
+        incoming.add(job);
+    }
+
+    /**
+     * Сразу сохраняет состояние задачи, например после паузы или смены приоритета; только из потока сервера
+     */
+    public void checkpoint(PlacementJob job) {
+        if (!job.isFinished() && job.isPersistent()) {
+            store.save(job);
+        }
+    }
+
+    /**
+     * Все незавершённые задачи, включая ещё не принятые потоком сервера
+     */
+    public List<PlacementJob> getJobs() {
+        List<PlacementJob> jobs = new ArrayList<>(active);
+        jobs.addAll(incoming);
+        return jobs;
+    }
+
+    public Optional<PlacementJob> getJob(int id) {
+        for (PlacementJob job : getJobs()) {
+            if (job.getId() == id) {
+                return Optional.of(job);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void tick(double mspt) {
+        PlacementJob job;
+        while ((job = incoming.poll()) != null) {
+            job.start();
+            active.add(job);
+        }
+        if (active.isEmpty()) {
+            return;
+        }
+
+        placeBlocks(mspt);
+        removeFinished();
+
+        if (++ticksSinceCheckpoint >= checkpointIntervalTicks) {
+            ticksSinceCheckpoint = 0;
+            for (PlacementJob activeJob : active) {
+                if (activeJob.isPersistent() && activeJob.hasUnsavedProgress()) {
+                    store.save(activeJob);
+                }
+            }
+        }
+    }
+
+    private void placeBlocks(double mspt) {
+        long maxJobBudget = 0;
+        int totalWeight = 0;
+        for (PlacementJob activeJob : active) {
+            if (activeJob.getState() != PlacementJob.State.RUNNING) {
+                continue;
+            }
+            maxJobBudget = Math.max(maxJobBudget, activeJob.getMaxBudgetNanos());
+            totalWeight += activeJob.getPriority().getWeight();
+        }
+        if (totalWeight == 0) {
+            // Все задачи на паузе
+            return;
+        }
+
+        tickBudget.adapt(mspt);
+        long total = Math.min(tickBudget.getBudgetNanos(), maxJobBudget);
+
+        long start = System.nanoTime();
+        long deadline = start + total;
+        long carry = 0;
+        int count = active.size();
+        int offset = roundRobinOffset++ % count;
+
+        for (int k = 0; k < count; k++) {
+            PlacementJob current = active.get((offset + k) % count);
+            if (current.getState() != PlacementJob.State.RUNNING) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            long share = total * current.getPriority().getWeight() / totalWeight + carry;
+            share = Math.min(share, remaining);
+            long spent = current.placeFor(share);
+            carry = Math.max(0, share - spent);
+        }
+
+        tickBudget.record(0, System.nanoTime() - start);
+    }
+
+    private void removeFinished() {
+        Iterator<PlacementJob> iterator = active.iterator();
+        while (iterator.hasNext()) {
+            PlacementJob job = iterator.next();
+            if (job.isFinished()) {
+                iterator.remove();
+                if (job.isPersistent()) {
+                    store.delete(job.getId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.xet.experiments.builder.placement;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.chunk.light.LightingProvider;
+import org.xet.experiments.builder.plan.BlockCursor;
+
+/**
+ * Массовая запись блоков напрямую в секции чанков.
+ * Блоки группируются по секциям, каждая секция блокируется один раз, а обновления
+ * клиентам уходят одним пакетом изменений на секцию (ChunkHolder собирает их до конца тика).
+ * Соседние блоки не уведомляются, поэтому падающие блоки не начинают падать при постройке.
+ */
+class SectionBlockWriter {
+    private static final Heightmap.Type[] TRACKED_HEIGHTMAPS = {
+            Heightmap.Type.MOTION_BLOCKING,
+            Heightmap.Type.MOTION_BLOCKING_NO_LEAVES,
+            Heightmap.Type.OCEAN_FLOOR,
+            Heightmap.Type.WORLD_SURFACE
+    };
+
+    private final ServerWorld world;
+    private final Long2ObjectLinkedOpenHashMap<IntArrayList> bySection = new Long2ObjectLinkedOpenHashMap<>();
+    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+    // Буфер одной пачки блоков, переиспользуется между тиками
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private int[] zs = new int[0];
+    private byte[] codes = new byte[0];
+
+    SectionBlockWriter(ServerWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Забирает из курсора не больше maxBlocks блоков и записывает их; возвращает число забранных блоков
+     */
+    int write(BlockCursor cursor, BlockPalette palette, int maxBlocks) {
+        ensureCapacity(maxBlocks);
+        int count = 0;
+        while (count < maxBlocks && cursor.advance()) {
+            int x = cursor.getX();
+            int y = cursor.getY();
+            int z = cursor.getZ();
+            xs[count] = x;
+            ys[count] = y;
+            zs[count] = z;
+            codes[count] = (byte) cursor.getCode();
+
+            if (!world.isOutOfHeightLimit(y)) {
+                long key = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+                IntArrayList indices = bySection.get(key);
+                if (indices == null) {
+                    indices = new IntArrayList();
+                    bySection.put(key, indices);
+                }
+                indices.add(count);
+            }
+            count++;
+        }
+
+        ServerChunkManager chunkManager = world.getChunkManager();
+        LightingProvider lightingProvider = chunkManager.getLightingProvider();
+
+        ObjectIterator<Long2ObjectLinkedOpenHashMap.Entry<IntArrayList>> iterator = bySection.long2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            Long2ObjectLinkedOpenHashMap.Entry<IntArrayList> entry = iterator.next();
+            writeSection(ChunkSectionPos.from(entry.getLongKey()), entry.getValue(), palette, chunkManager, lightingProvider);
+        }
+        bySection.clear();
+        return count;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (xs.length < capacity) {
+            xs = new int[capacity];
+            ys = new int[capacity];
+            zs = new int[capacity];
+            codes = new byte[capacity];
+        }
+    }
+
+    private void writeSection(ChunkSectionPos sectionPos, IntArrayList indices, BlockPalette palette,
+                              ServerChunkManager chunkManager, LightingProvider lightingProvider) {
+        WorldChunk chunk = world.getChunk(sectionPos.getSectionX(), sectionPos.getSectionZ());
+        ChunkSection section = chunk.getSection(chunk.sectionCoordToIndex(sectionPos.getSectionY()));
+        boolean wasEmpty = section.isEmpty();
+
+        section.lock();
+        try {
+            for (int k = 0; k < indices.size(); k++) {
+                int index = indices.getInt(k);
+                BlockPos pos = mutablePos.set(xs[index], ys[index], zs[index]);
+                BlockState state = palette.getState(codes[index]);
+                int localX = pos.getX() & 15;
+                int localY = pos.getY() & 15;
+                int localZ = pos.getZ() & 15;
+
+                BlockState oldState = section.getBlockState(localX, localY, localZ);
+                if (oldState == state) {
+                    continue;
+                }
+                if (oldState.hasBlockEntity()) {
+                    // Блок-сущности требуют полного пути установки
+                    section.unlock();
+                    try {
+                        world.setBlockState(pos, state);
+                    } finally {
+                        section.lock();
+                    }
+                    continue;
+                }
+
+                section.setBlockState(localX, localY, localZ, state, false);
+
+                for (Heightmap.Type type : TRACKED_HEIGHTMAPS) {
+                    chunk.getHeightmap(type).trackUpdate(localX, pos.getY(), localZ, state);
+                }
+
+                if (needsLightCheck(oldState, state, pos)) {
+                    // Поставщик освещения копирует позицию, изменяемую можно передавать
+                    lightingProvider.checkBlock(pos);
+                }
+                chunkManager.markForUpdate(pos);
+            }
+        } finally {
+            section.unlock();
+        }
+
+        boolean isEmpty = section.isEmpty();
+        if (wasEmpty != isEmpty) {
+            lightingProvider.setSectionStatus(sectionPos, isEmpty);
+        }
+        chunk.setNeedsSaving(true);
+    }
+
+    private boolean needsLightCheck(BlockState oldState, BlockState newState, BlockPos pos) {
+        return oldState.getOpacity(world, pos) != newState.getOpacity(world, pos)
+                || oldState.getLuminance() != newState.getLuminance()
+                || oldState.hasSidedTransparency()
+                || newState.hasSidedTransparency();
+    }
+}
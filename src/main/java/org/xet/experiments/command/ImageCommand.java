@@ -1,10 +1,13 @@
 package org.xet.experiments.command;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
@@ -19,10 +22,21 @@ import net.minecraft.text.Text;
 import net.minecraft.util.math.Vec3d;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.xet.experiments.builder.algorithm.BuilderAnimation;
 import org.xet.experiments.builder.algorithm.BuilderImage;
-import org.xet.experiments.builder.algorithm.ImageGetter;
+import org.xet.experiments.builder.algorithm.ImageCache;
+import org.xet.experiments.builder.algorithm.ImageIndex;
+import org.xet.experiments.builder.algorithm.LruCache;
+import org.xet.experiments.builder.algorithm.height_map.HeightMapDiskCache;
 import org.xet.experiments.builder.algorithm.height_map.RegistryGeneratorsHeightMap;
+import org.xet.experiments.builder.placement.AnimationJob;
+import org.xet.experiments.builder.placement.PlacementJob;
+import org.xet.experiments.builder.placement.PlacementPriority;
+import org.xet.experiments.builder.placement.PlacementScheduler;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import static net.minecraft.server.command.CommandManager.argument;
@@ -32,13 +46,78 @@ public class ImageCommand {
 
     public static void register(CommandDispatcher<ServerCommandSource> serverCommandSourceCommandDispatcher, CommandRegistryAccess commandRegistryAccess, CommandManager.RegistrationEnvironment registrationEnvironment) {
         serverCommandSourceCommandDispatcher.register(CommandManager.literal("image")
+                .then(CommandManager.literal("status")
+                        .executes(ImageCommand::status)
+                )
+                .then(CommandManager.literal("cache")
+                        .executes(ImageCommand::cacheStats)
+                        .then(CommandManager.literal("clear")
+                                .requires(source -> source.hasPermissionLevel(2))
+                                .executes(ImageCommand::cacheClear)
+                        )
+                )
+                .then(CommandManager.literal("priority")
+                        .requires(source -> source.hasPermissionLevel(2))
+                        .then(argument("id", IntegerArgumentType.integer(1))
+                                .then(argument("priority", StringArgumentType.word())
+                                        .suggests(new AttributePrioritySuggestionProvider())
+                                        .executes(ImageCommand::priority)
+                                )
+                        )
+                )
+                .then(CommandManager.literal("pause")
+                        .requires(source -> source.hasPermissionLevel(2))
+                        .then(argument("id", IntegerArgumentType.integer(1))
+                                .executes(ImageCommand::pause)
+                        )
+                )
+                .then(CommandManager.literal("resume")
+                        .requires(source -> source.hasPermissionLevel(2))
+                        .then(argument("id", IntegerArgumentType.integer(1))
+                                .executes(ImageCommand::resume)
+                        )
+                )
+                .then(CommandManager.literal("cancel")
+                        .requires(source -> source.hasPermissionLevel(2))
+                        .then(argument("id", IntegerArgumentType.integer(1))
+                                .executes(ImageCommand::cancel)
+                        )
+                )
+                .then(CommandManager.literal("animate")
+                        .then(argument("width", IntegerArgumentType.integer())
+                                .then(argument("height", IntegerArgumentType.integer())
+                                        .then(argument("typeHeightMap", StringArgumentType.word())
+                                                .suggests(new AttributeTypeHeightSuggestionProvider())
+                                                .then(argument("file", StringArgumentType.string())
+                                                        .suggests(new AttributeFileSuggestionProvider())
+                                                        .executes(ImageCommand::animate)
+                                                        .then(argument("loops", IntegerArgumentType.integer(0))
+                                                                .executes(ImageCommand::animate)
+                                                                .then(argument("budget", IntegerArgumentType.integer(1, 50))
+                                                                        .executes(ImageCommand::animate)
+                                                                        .then(argument("seed", LongArgumentType.longArg())
+                                                                                .executes(ImageCommand::animate)
+                                                                        )
+                                                                )
+                                                        )
+                                                )
+                                        )
+                                )
+                        )
+                )
                 .then(argument("width", IntegerArgumentType.integer())
                         .then(argument("height", IntegerArgumentType.integer())
                                 .then(argument("typeHeightMap", StringArgumentType.word())
                                         .suggests(new AttributeTypeHeightSuggestionProvider())
-                                        .then(argument("file", StringArgumentType.word())
+                                        .then(argument("file", StringArgumentType.string())
                                                 .suggests(new AttributeFileSuggestionProvider())
                                                 .executes(ImageCommand::run)
+                                                .then(argument("budget", IntegerArgumentType.integer(1, 50))
+                                                        .executes(ImageCommand::run)
+                                                        .then(argument("seed", LongArgumentType.longArg())
+                                                                .executes(ImageCommand::run)
+                                                        )
+                                                )
                                         )
                                 )
                         )
@@ -83,6 +162,125 @@ public class ImageCommand {
         return 1;
     }
 
+    private static int animate(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        ServerPlayerEntity player = source.getPlayerOrThrow();
+
+        LOGGER.info("Игрок {} запускает анимацию в позиции {}", player.getName().getString(), player.getPos());
+
+        try {
+            BuilderAnimation builderAnimation = new BuilderAnimation(context);
+            source.sendMessage(Text.literal("§eДекодирование кадров анимации..."));
+            builderAnimation.buildAsync(player.getPos(), player.getWorld(), source);
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при создании BuilderAnimation", e);
+            source.sendMessage(Text.literal("§cОшибка при инициализации: " + e.getMessage()));
+            return 0;
+        }
+        return 1;
+    }
+
+    private static int status(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        List<PlacementJob> jobs = PlacementScheduler.getInstance().getJobs();
+        if (jobs.isEmpty()) {
+            source.sendMessage(Text.literal("§eНет активных задач размещения"));
+            return 0;
+        }
+
+        source.sendMessage(Text.literal("§eАктивные задачи размещения: " + jobs.size()));
+        for (PlacementJob job : jobs) {
+            String line = String.format("§7#%d §f%s §7[%s] %s, %s: %d/%d (%d%%)",
+                    job.getId(), job.getOwnerName(), job.getWorld().getRegistryKey().getValue(),
+                    job.getState(), job.getPriority(), job.getPlacedBlocks(), job.getTotalBlocks(), job.getPercent());
+            if (job instanceof AnimationJob animation) {
+                line += String.format(", кадр %d/%d, осталось блоков %d",
+                        animation.getFrame(), animation.getFrameCount(), animation.getPendingBlocks());
+            }
+            source.sendMessage(Text.literal(line));
+        }
+        return jobs.size();
+    }
+
+    private static int priority(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ServerCommandSource source = context.getSource();
+        String name = StringArgumentType.getString(context, "priority");
+
+        PlacementPriority priority;
+        try {
+            priority = PlacementPriority.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new SimpleCommandExceptionType(Text.literal("Неизвестный приоритет: " + name)).create();
+        }
+
+        PlacementJob job = getJob(context);
+        job.setPriority(priority);
+        PlacementScheduler.getInstance().checkpoint(job);
+        source.sendMessage(Text.literal("§aПриоритет задачи #" + job.getId() + ": " + priority));
+        return 1;
+    }
+
+    private static int pause(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        PlacementJob job = getJob(context);
+        if (!job.pause()) {
+            throw new SimpleCommandExceptionType(Text.literal("Задача #" + job.getId() + " не выполняется")).create();
+        }
+        PlacementScheduler.getInstance().checkpoint(job);
+        context.getSource().sendMessage(Text.literal("§aЗадача #" + job.getId() + " приостановлена"));
+        return 1;
+    }
+
+    private static int resume(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        PlacementJob job = getJob(context);
+        if (!job.resume()) {
+            throw new SimpleCommandExceptionType(Text.literal("Задача #" + job.getId() + " не на паузе")).create();
+        }
+        PlacementScheduler.getInstance().checkpoint(job);
+        context.getSource().sendMessage(Text.literal("§aЗадача #" + job.getId() + " продолжена"));
+        return 1;
+    }
+
+    private static int cancel(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        PlacementJob job = getJob(context);
+        if (!job.cancel()) {
+            throw new SimpleCommandExceptionType(Text.literal("Задача #" + job.getId() + " уже завершена")).create();
+        }
+        context.getSource().sendMessage(Text.literal("§aЗадача #" + job.getId() + " отменена, поставлено блоков: "
+                + job.getPlacedBlocks() + "/" + job.getTotalBlocks()));
+        return 1;
+    }
+
+    private static PlacementJob getJob(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        int id = IntegerArgumentType.getInteger(context, "id");
+        Optional<PlacementJob> job = PlacementScheduler.getInstance().getJob(id);
+        if (job.isEmpty()) {
+            throw new SimpleCommandExceptionType(Text.literal("Задача #" + id + " не найдена")).create();
+        }
+        return job.get();
+    }
+
+    private static int cacheStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        for (LruCache<?, ?> cache : ImageCache.getCaches()) {
+            source.sendMessage(Text.literal(String.format("§eКэш %s: §f%d записей, %.1f/%.1f МБ, попаданий %d, промахов %d",
+                    cache.getName(), cache.size(), cache.getUsedBytes() / 1048576.0, cache.getMaxBytes() / 1048576.0,
+                    cache.getHits(), cache.getMisses())));
+        }
+        if (HeightMapDiskCache.isEnabled()) {
+            source.sendMessage(Text.literal(String.format("§eКэш карт высот: §f%d записей, %.1f/%.1f МБ, попаданий %d, промахов %d",
+                    HeightMapDiskCache.getEntryCount(), HeightMapDiskCache.getUsedBytes() / 1048576.0,
+                    HeightMapDiskCache.getMaxBytes() / 1048576.0, HeightMapDiskCache.getHits(), HeightMapDiskCache.getMisses())));
+        }
+        return 1;
+    }
+
+    private static int cacheClear(CommandContext<ServerCommandSource> context) {
+        ImageCache.clear();
+        HeightMapDiskCache.clear();
+        context.getSource().sendMessage(Text.literal("§aКэш изображений и карт высот очищен"));
+        return 1;
+    }
+
     static class AttributeTypeHeightSuggestionProvider implements SuggestionProvider<ServerCommandSource> {
         private final String[] names = RegistryGeneratorsHeightMap.getAvailableNames();
 
@@ -95,16 +293,45 @@ public class ImageCommand {
         }
     }
 
+    static class AttributePrioritySuggestionProvider implements SuggestionProvider<ServerCommandSource> {
+
+        @Override
+        public CompletableFuture<Suggestions> getSuggestions(CommandContext<ServerCommandSource> context, SuggestionsBuilder builder) {
+            for (PlacementPriority priority : PlacementPriority.values()) {
+                builder.suggest(priority.name().toLowerCase(Locale.ROOT));
+            }
+            return builder.buildFuture();
+        }
+    }
+
     static class AttributeFileSuggestionProvider implements SuggestionProvider<ServerCommandSource> {
 
         @Override
         public CompletableFuture<Suggestions> getSuggestions(CommandContext<ServerCommandSource> context, SuggestionsBuilder builder) {
-            for (String file : ImageGetter.getAvailableImages()) {
-                builder.suggest(file);
+            String remaining = builder.getRemaining();
+            boolean quoted = remaining.startsWith("\"");
+            String prefix = quoted ? remaining.substring(1) : remaining;
+
+            for (String file : ImageIndex.getImages(prefix)) {
+                // Пути с подпапками не являются одним словом и передаются в кавычках
+                if (quoted || !isUnquotedString(file)) {
+                    builder.suggest("\"" + file + "\"");
+                } else {
+                    builder.suggest(file);
+                }
             }
 
             return builder.buildFuture();
         }
+
+        private static boolean isUnquotedString(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!StringReader.isAllowedInUnquotedString(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
 }
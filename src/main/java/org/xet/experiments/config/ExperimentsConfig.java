@@ -0,0 +1,275 @@
+package org.xet.experiments.config;
+
+import net.fabricmc.loader.api.FabricLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xet.experiments.builder.algorithm.color.DitheringMode;
+import org.xet.experiments.builder.algorithm.color.PaletteMaterial;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Настройки мода из config/experiments.properties.
+ * При первом запуске файл создаётся со значениями по умолчанию.
+ */
+public class ExperimentsConfig {
+    private static final Logger LOGGER = LogManager.getLogger(ExperimentsConfig.class);
+    private static final String FILE_NAME = "experiments.properties";
+
+    private static ExperimentsConfig instance = new ExperimentsConfig();
+
+    /**
+     * Максимальное время на размещение блоков за один тик, мс
+     */
+    private int placementBudgetMs = 10;
+    /**
+     * Целевое MSPT сервера: при превышении бюджет размещения уменьшается
+     */
+    private double targetMspt = 40.0;
+    /**
+     * Писать блоки напрямую в секции чанков вместо setBlockState для каждого блока
+     */
+    private boolean directSectionWrites = true;
+    /**
+     * Потоков генерации, 0 - по числу ядер минус один
+     */
+    private int generationThreads = 0;
+    /**
+     * Сколько задач генерации может ждать в очереди
+     */
+    private int maxQueuedJobs = 16;
+    /**
+     * Сколько задач генерации одновременно может быть у одного игрока
+     */
+    private int maxJobsPerPlayer = 1;
+    private int generationTimeoutSeconds = 30;
+    /**
+     * Размер изображения в пикселях, начиная с которого уменьшение и квантование цветов идут в несколько потоков
+     */
+    private int parallelQuantizationThreshold = 256 * 256;
+    /**
+     * Размер кэша декодированных изображений и сеток цветов, МБ
+     */
+    private int imageCacheSizeMb = 64;
+    /**
+     * Глубина вложенности папок, в которых ищутся изображения (1 - только папка игры)
+     */
+    private int imageIndexDepth = 3;
+    /**
+     * Размер дискового кэша карт высот, МБ; 0 - кэш отключён
+     */
+    private int heightMapCacheSizeMb = 128;
+    /**
+     * Материал блоков изображения
+     */
+    private PaletteMaterial paletteMaterial = PaletteMaterial.CONCRETE_POWDER;
+    /**
+     * Сглаживание цветов при квантовании
+     */
+    private DitheringMode dithering = DitheringMode.NONE;
+    /**
+     * Как часто сохранять прогресс задач размещения на диск, секунд
+     */
+    private int checkpointIntervalSeconds = 30;
+    /**
+     * Сколько кадров анимации декодируется не больше
+     */
+    private int maxAnimationFrames = 256;
+    /**
+     * Длительность кадра для папки с кадрами и для кадров GIF без задержки, мс
+     */
+    private int animationFrameDelayMs = 100;
+
+    public static ExperimentsConfig get() {
+        return instance;
+    }
+
+    public static void load() {
+        Path path = FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+        ExperimentsConfig config = new ExperimentsConfig();
+
+        if (Files.exists(path)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                LOGGER.error("Не удалось прочитать {}: {}", path, e.getMessage());
+            }
+            config.placementBudgetMs = getInt(properties, "placementBudgetMs", config.placementBudgetMs, 1, 50);
+            config.targetMspt = getDouble(properties, "targetMspt", config.targetMspt, 5.0, 50.0);
+            config.directSectionWrites = Boolean.parseBoolean(
+                    properties.getProperty("directSectionWrites", Boolean.toString(config.directSectionWrites)).trim());
+            config.generationThreads = getInt(properties, "generationThreads", config.generationThreads, 0, 64);
+            config.maxQueuedJobs = getInt(properties, "maxQueuedJobs", config.maxQueuedJobs, 1, 1024);
+            config.maxJobsPerPlayer = getInt(properties, "maxJobsPerPlayer", config.maxJobsPerPlayer, 1, 64);
+            config.generationTimeoutSeconds = getInt(properties, "generationTimeoutSeconds", config.generationTimeoutSeconds, 1, 3600);
+            config.parallelQuantizationThreshold = getInt(properties, "parallelQuantizationThreshold",
+                    config.parallelQuantizationThreshold, 0, Integer.MAX_VALUE);
+            config.imageCacheSizeMb = getInt(properties, "imageCacheSizeMb", config.imageCacheSizeMb, 0, 4096);
+            config.imageIndexDepth = getInt(properties, "imageIndexDepth", config.imageIndexDepth, 1, 16);
+            config.heightMapCacheSizeMb = getInt(properties, "heightMapCacheSizeMb", config.heightMapCacheSizeMb, 0, 65536);
+            config.paletteMaterial = getMaterial(properties, "paletteMaterial", config.paletteMaterial);
+            config.dithering = getDithering(properties, "dithering", config.dithering);
+            config.checkpointIntervalSeconds = getInt(properties, "checkpointIntervalSeconds", config.checkpointIntervalSeconds, 1, 3600);
+            config.maxAnimationFrames = getInt(properties, "maxAnimationFrames", config.maxAnimationFrames, 1, 4096);
+            config.animationFrameDelayMs = getInt(properties, "animationFrameDelayMs", config.animationFrameDelayMs, 50, 60000);
+        }
+
+        config.save(path);
+        instance = config;
+        LOGGER.info("Конфигурация загружена: бюджет размещения={}мс, целевое MSPT={}", config.placementBudgetMs, config.targetMspt);
+    }
+
+    private void save(Path path) {
+        Properties properties = new Properties();
+        properties.setProperty("placementBudgetMs", Integer.toString(placementBudgetMs));
+        properties.setProperty("targetMspt", Double.toString(targetMspt));
+        properties.setProperty("directSectionWrites", Boolean.toString(directSectionWrites));
+        properties.setProperty("generationThreads", Integer.toString(generationThreads));
+        properties.setProperty("maxQueuedJobs", Integer.toString(maxQueuedJobs));
+        properties.setProperty("maxJobsPerPlayer", Integer.toString(maxJobsPerPlayer));
+        properties.setProperty("generationTimeoutSeconds", Integer.toString(generationTimeoutSeconds));
+        properties.setProperty("parallelQuantizationThreshold", Integer.toString(parallelQuantizationThreshold));
+        properties.setProperty("imageCacheSizeMb", Integer.toString(imageCacheSizeMb));
+        properties.setProperty("imageIndexDepth", Integer.toString(imageIndexDepth));
+        properties.setProperty("heightMapCacheSizeMb", Integer.toString(heightMapCacheSizeMb));
+        properties.setProperty("paletteMaterial", paletteMaterial.getName());
+        properties.setProperty("dithering", dithering.getName());
+        properties.setProperty("checkpointIntervalSeconds", Integer.toString(checkpointIntervalSeconds));
+        properties.setProperty("maxAnimationFrames", Integer.toString(maxAnimationFrames));
+        properties.setProperty("animationFrameDelayMs", Integer.toString(animationFrameDelayMs));
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                properties.store(writer, "Falling Block Art settings");
+            }
+        } catch (IOException e) {
+            LOGGER.error("Не удалось сохранить {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue, int min, int max) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Некорректное значение {}={}, используется {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double getDouble(Properties properties, String key, double defaultValue, double min, double max) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(min, Math.min(max, Double.parseDouble(value.trim())));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Некорректное значение {}={}, используется {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static PaletteMaterial getMaterial(Properties properties, String key, PaletteMaterial defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return PaletteMaterial.fromName(value.trim());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Некорректное значение {}={}, используется {}", key, value, defaultValue.getName());
+            return defaultValue;
+        }
+    }
+
+    private static DitheringMode getDithering(Properties properties, String key, DitheringMode defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return DitheringMode.fromName(value.trim());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Некорректное значение {}={}, используется {}", key, value, defaultValue.getName());
+            return defaultValue;
+        }
+    }
+
+    public int getPlacementBudgetMs() {
+        return placementBudgetMs;
+    }
+
+    public double getTargetMspt() {
+        return targetMspt;
+    }
+
+    public boolean isDirectSectionWrites() {
+        return directSectionWrites;
+    }
+
+    public int getGenerationThreads() {
+        if (generationThreads > 0) {
+            return generationThreads;
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public int getMaxQueuedJobs() {
+        return maxQueuedJobs;
+    }
+
+    public int getMaxJobsPerPlayer() {
+        return maxJobsPerPlayer;
+    }
+
+    public int getGenerationTimeoutSeconds() {
+        return generationTimeoutSeconds;
+    }
+
+    public int getParallelQuantizationThreshold() {
+        return parallelQuantizationThreshold;
+    }
+
+    public int getImageCacheSizeMb() {
+        return imageCacheSizeMb;
+    }
+
+    public int getImageIndexDepth() {
+        return imageIndexDepth;
+    }
+
+    public int getHeightMapCacheSizeMb() {
+        return heightMapCacheSizeMb;
+    }
+
+    public PaletteMaterial getPaletteMaterial() {
+        return paletteMaterial;
+    }
+
+    public DitheringMode getDithering() {
+        return dithering;
+    }
+
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    public int getMaxAnimationFrames() {
+        return maxAnimationFrames;
+    }
+
+    public int getAnimationFrameDelayMs() {
+        return animationFrameDelayMs;
+    }
+}